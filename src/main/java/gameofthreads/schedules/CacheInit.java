@@ -1,5 +1,6 @@
 package gameofthreads.schedules;
 
+import gameofthreads.schedules.domain.OccupancyIndex;
 import gameofthreads.schedules.domain.Schedule;
 import gameofthreads.schedules.service.ScheduleService;
 import org.springframework.stereotype.Component;
@@ -7,14 +8,22 @@ import org.springframework.stereotype.Component;
 @Component
 public class CacheInit {
     private final ScheduleService scheduleService;
+    private final OccupancyIndex occupancyIndex;
 
-    public CacheInit(ScheduleService scheduleService) {
+    public CacheInit(ScheduleService scheduleService, OccupancyIndex occupancyIndex) {
         this.scheduleService = scheduleService;
+        this.occupancyIndex = occupancyIndex;
         this.loadPublicLinks();
+        this.loadOccupancyIndex();
     }
 
     public void loadPublicLinks() {
         Schedule.loadPublicLinks(scheduleService.findPublicLinks());
     }
 
+    public void loadOccupancyIndex() {
+        if (occupancyIndex.isEnabled())
+            occupancyIndex.load(scheduleService.findAllWithConferencesAndMeetings());
+    }
+
 }
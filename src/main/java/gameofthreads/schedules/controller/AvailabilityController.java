@@ -0,0 +1,40 @@
+package gameofthreads.schedules.controller;
+
+import gameofthreads.schedules.service.AvailabilityService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("api/availability")
+public class AvailabilityController {
+    private final static Logger LOGGER = LoggerFactory.getLogger(LoggerFactory.class);
+    private final AvailabilityService availabilityService;
+
+    public AvailabilityController(AvailabilityService availabilityService) {
+        this.availabilityService = availabilityService;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> getFree(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                     @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                     @RequestParam(value = "rooms", defaultValue = "") List<String> rooms,
+                                     @RequestParam(value = "lecturers", defaultValue = "") List<Integer> lecturers,
+                                     @RequestParam(value = "groups", defaultValue = "") List<String> groups) {
+        return availabilityService.findFree(from, to, rooms, lecturers, groups)
+                .fold(error -> {
+                    LOGGER.info(error.toString());
+                    return ResponseEntity.badRequest().body(error);
+                }, success -> ResponseEntity.status(HttpStatus.OK).body(success));
+    }
+
+}
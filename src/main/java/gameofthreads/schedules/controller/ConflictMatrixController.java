@@ -0,0 +1,23 @@
+package gameofthreads.schedules.controller;
+
+import gameofthreads.schedules.service.ConflictMatrixService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("api/conflicts")
+public class ConflictMatrixController {
+    private final ConflictMatrixService conflictMatrixService;
+
+    public ConflictMatrixController(ConflictMatrixService conflictMatrixService) {
+        this.conflictMatrixService = conflictMatrixService;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> getMatrix() {
+        return ResponseEntity.ok(conflictMatrixService.getMatrix());
+    }
+
+}
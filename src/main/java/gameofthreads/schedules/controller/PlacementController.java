@@ -0,0 +1,42 @@
+package gameofthreads.schedules.controller;
+
+import gameofthreads.schedules.dto.request.PlacementRequest;
+import gameofthreads.schedules.message.ErrorMessage;
+import gameofthreads.schedules.service.PlacementService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("api/placements")
+public class PlacementController {
+    private final static Logger LOGGER = LoggerFactory.getLogger(LoggerFactory.class);
+    private final PlacementService placementService;
+
+    public PlacementController(PlacementService placementService) {
+        this.placementService = placementService;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> submit(@RequestBody PlacementRequest request) {
+        return placementService.submit(request)
+                .fold(error -> {
+                    LOGGER.info(error.toString());
+                    return ErrorMessage.PLACEMENT_QUEUE_FULL.asJson().equals(error) ?
+                            ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(error) :
+                            ResponseEntity.badRequest().body(error);
+                }, success -> ResponseEntity.status(HttpStatus.ACCEPTED).body(success));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getJob(@PathVariable String id) {
+        return placementService.getJob(id)
+                .fold(error -> {
+                    LOGGER.info(error.toString());
+                    return ResponseEntity.badRequest().body(error);
+                }, success -> ResponseEntity.status(HttpStatus.OK).body(success));
+    }
+
+}
@@ -1,5 +1,8 @@
 package gameofthreads.schedules.controller;
 
+import gameofthreads.schedules.domain.RowFormatException;
+import gameofthreads.schedules.domain.SlotSuggester;
+import gameofthreads.schedules.dto.response.RowErrorResponse;
 import gameofthreads.schedules.entity.ExcelEntity;
 import gameofthreads.schedules.message.ErrorMessage;
 import gameofthreads.schedules.notification.EmailGateway;
@@ -16,13 +19,19 @@ import org.springframework.security.oauth2.server.resource.authentication.JwtAut
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CompletableFuture;
 
 @Controller
 @RequestMapping("api/schedules")
 public class ScheduleController {
+    private static final String COMPACT_FORMAT = "compact";
+    private static final String NDJSON_FORMAT = "ndjson";
+    private static final String WEEK_SCOPE = "week";
+
     private final FileUploadService fileUploadService;
     private final ScheduleService scheduleService;
     private final EmailGateway emailGateway;
@@ -76,17 +85,67 @@ public class ScheduleController {
     }
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<?> uploadFile(@RequestParam("files[]") MultipartFile[] files) throws IOException {
-        Pair<?, Boolean> upload = fileUploadService.saveFiles(files, scheduleService);
+    public ResponseEntity<?> uploadFile(@RequestParam("files[]") MultipartFile[] files,
+                                        @RequestParam(value = "format", required = false) String format,
+                                        @RequestParam(value = "suggestions", defaultValue = "0") Integer suggestions,
+                                        @RequestParam(value = "suggestWithin", defaultValue = "day") String suggestWithin) throws IOException {
+        Pair<?, Boolean> upload = fileUploadService.saveFiles(files, scheduleService, COMPACT_FORMAT.equals(format),
+                suggestionRequest(suggestions, suggestWithin));
+
+        return upload.getSecond() ?
+                ResponseEntity.status(HttpStatus.OK).body(upload.getFirst()) :
+                ResponseEntity.status(HttpStatus.BAD_REQUEST).body(upload.getFirst());
+    }
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE, params = "format=" + NDJSON_FORMAT)
+    public ResponseEntity<StreamingResponseBody> uploadFileAsStream(@RequestParam("files[]") MultipartFile[] files) throws IOException {
+        Pair<?, Boolean> upload = fileUploadService.saveFilesAsStream(files, scheduleService);
+
+        if (upload.getSecond())
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body((StreamingResponseBody) upload.getFirst());
+
+        byte[] error = upload.getFirst().toString().getBytes(StandardCharsets.UTF_8);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> outputStream.write(error));
+    }
+
+    @PostMapping(value = "/validate", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> validateFiles(@RequestParam("files[]") MultipartFile[] files,
+                                           @RequestParam(value = "format", required = false) String format) throws IOException {
+        Pair<?, Boolean> validation = fileUploadService.validateFiles(files, COMPACT_FORMAT.equals(format));
+
+        return validation.getSecond() ?
+                ResponseEntity.status(HttpStatus.OK).body(validation.getFirst()) :
+                ResponseEntity.status(HttpStatus.BAD_REQUEST).body(validation.getFirst());
+    }
+
+    @PostMapping("/commit")
+    public ResponseEntity<?> commitFiles(@RequestParam("token") String token,
+                                         @RequestParam(value = "format", required = false) String format) {
+        Pair<?, Boolean> upload = fileUploadService.commitFiles(token, scheduleService, COMPACT_FORMAT.equals(format));
 
         return upload.getSecond() ?
                 ResponseEntity.status(HttpStatus.OK).body(upload.getFirst()) :
                 ResponseEntity.status(HttpStatus.BAD_REQUEST).body(upload.getFirst());
     }
 
+    @PostMapping(value = "/check", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> checkFiles(@RequestParam("files[]") MultipartFile[] files,
+                                        @RequestParam(value = "page", defaultValue = "0") Integer page,
+                                        @RequestParam(value = "size", required = false) Integer size,
+                                        @RequestParam(value = "suggestions", defaultValue = "0") Integer suggestions,
+                                        @RequestParam(value = "suggestWithin", defaultValue = "day") String suggestWithin) throws IOException {
+        Pair<?, Boolean> check = fileUploadService.checkFiles(files, page, size, suggestionRequest(suggestions, suggestWithin));
+
+        return check.getSecond() ?
+                ResponseEntity.status(HttpStatus.OK).body(check.getFirst()) :
+                ResponseEntity.status(HttpStatus.BAD_REQUEST).body(check.getFirst());
+    }
+
     @PostMapping(value = "/{scheduleId}/file", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<?> changeSchedule(@PathVariable Integer scheduleId, @RequestParam("file") MultipartFile file) throws IOException {
-        Pair<?, Boolean> update = fileUploadService.updateSchedule(file, scheduleId, scheduleService);
+    public ResponseEntity<?> changeSchedule(@PathVariable Integer scheduleId, @RequestParam("file") MultipartFile file,
+                                            @RequestParam(value = "format", required = false) String format) throws IOException {
+        Pair<?, Boolean> update = fileUploadService.updateSchedule(file, scheduleId, scheduleService, COMPACT_FORMAT.equals(format));
 
         return update.getSecond() ?
                 ResponseEntity.status(HttpStatus.OK).body(update.getFirst()) :
@@ -104,4 +163,23 @@ public class ScheduleController {
                 .body(new ByteArrayResource(excelEntity.getData()));
     }
 
-}
\ No newline at end of file
+    /**
+     * A text file with a malformed row is rejected as a whole, pointing at the row to fix.
+     */
+    @ExceptionHandler(RowFormatException.class)
+    public ResponseEntity<?> rejectMalformedRow(RowFormatException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new RowErrorResponse(ErrorMessage.WRONG_FILE_ROW.getText(), e.getFileName(), e.getRow()));
+    }
+
+    /**
+     * Conflicting events get up to the given number of free slots on the same day, or in the same week.
+     */
+    private static SlotSuggester.Request suggestionRequest(Integer suggestions, String suggestWithin) {
+        if (suggestions <= 0)
+            return null;
+        return new SlotSuggester.Request(suggestions,
+                WEEK_SCOPE.equals(suggestWithin) ? SlotSuggester.Scope.WEEK : SlotSuggester.Scope.DAY);
+    }
+
+}
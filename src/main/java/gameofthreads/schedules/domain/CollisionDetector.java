@@ -1,59 +1,216 @@
 package gameofthreads.schedules.domain;
 
+import gameofthreads.schedules.dto.response.CollisionCheckResponse;
 import gameofthreads.schedules.dto.response.UploadConflictResponse;
-import gameofthreads.schedules.entity.ExcelEntity;
 import org.springframework.data.util.Pair;
 
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public class CollisionDetector {
     List<Schedule> schedules;
+    private final CollisionPool collisionPool;
+    private OccupancyCalendar calendar;
+    private int calendarFrom;
+    private int calendarTo;
+    private boolean calendarComplete;
+    private SlotSuggester slotSuggester;
 
     public CollisionDetector(Schedule schedule) {
+        this(schedule, null);
+    }
+
+    public CollisionDetector(Schedule schedule, CollisionPool collisionPool) {
         schedules = new ArrayList<>();
         schedules.add(schedule);
+        this.collisionPool = collisionPool;
+    }
+
+    public void loadSchedules(Collection<Schedule> otherSchedules) {
+        schedules.addAll(otherSchedules);
+    }
+
+    /**
+     * Loads schedules whose meetings are all in the calendar, so the sweep can skip them for uploaded meetings
+     * whose slots are free in the calendar. Only one calendar is used, the schedules of any later one
+     * are compared without it.
+     */
+    public void loadSchedules(Collection<Schedule> otherSchedules, OccupancyCalendar otherCalendar) {
+        loadSchedules(otherSchedules, otherCalendar, false);
     }
 
-    public void loadSchedules(List<ExcelEntity> excelEntities) throws IOException {
-        for (ExcelEntity excelEntity : excelEntities) {
-            Optional<Schedule> newSchedule = new Parser(excelEntity.getSchedule().getFileName(), excelEntity.getData()).parse();
-            newSchedule.ifPresent(schedule -> schedules.add(schedule));
+    /**
+     * Same as {@link #loadSchedules(Collection, OccupancyCalendar)}. A complete calendar holds the meetings of
+     * these schedules and nothing else, so its slots alone tell that a meeting on the grid collides.
+     */
+    public void loadSchedules(Collection<Schedule> otherSchedules, OccupancyCalendar otherCalendar, boolean complete) {
+        if (otherCalendar != null && calendar == null) {
+            calendar = otherCalendar;
+            calendarFrom = schedules.size();
+            calendarTo = schedules.size() + otherSchedules.size();
+            calendarComplete = complete;
         }
+        schedules.addAll(otherSchedules);
+    }
+
+    /**
+     * Conflicting events reported from now on carry the slots the suggester finds for them.
+     */
+    public void suggestSlots(SlotSuggester slotSuggester) {
+        this.slotSuggester = slotSuggester;
     }
 
     public Pair<UploadConflictResponse.ConflictSchedule, Boolean> compareSchedules() {
-        Schedule thisSchedule = schedules.get(0);
-        List<Meeting> thisMeetings = thisSchedule.getConferences().stream().
-                flatMap(conference -> conference.getMeetings().stream())
-                .collect(Collectors.toList());
         UploadConflictResponse.ConflictSchedule conflictSchedule =
-                new UploadConflictResponse.ConflictSchedule(thisSchedule.getFileName());
+                new UploadConflictResponse.ConflictSchedule(schedules.get(0).getFileName());
+
+        for (CollisionSweep.EventCollisions collisions : sweep()) {
+            conflictSchedule.eventsWithConflicts.add(toConflictEvents(collisions));
+        }
+
+        return Pair.of(conflictSchedule, conflictSchedule.eventsWithConflicts.isEmpty());
+    }
+
+    /**
+     * Same check as {@link #compareSchedules()} without building any report. With a complete calendar,
+     * uploaded meetings on the grid are answered from its slots and only the rest are swept.
+     */
+    public boolean isCollisionFree() {
+        if (calendarComplete && collidesInCalendar())
+            return false;
+        return sweep().isEmpty();
+    }
+
+    private boolean collidesInCalendar() {
+        ResourceBuckets buckets = schedules.get(0).getResourceBuckets();
+        for (ResourceKey key : buckets.keys()) {
+            ResourceBuckets.Bucket bucket = buckets.get(key);
+            for (int i = 0; i < bucket.size(); i++) {
+                if (calendar.collides(key, bucket.getMeeting(i)))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Same check as {@link #compareSchedules()}, reported into the compact format.
+     * Returns true if the schedule has no collisions.
+     */
+    public boolean compareSchedules(CompactConflictCollector collector) {
+        List<CollisionSweep.EventCollisions> found = sweep();
+        for (CollisionSweep.EventCollisions collisions : found) {
+            List<Meeting> otherMeetings = collisions.getMeetings();
+            List<Schedule> otherSchedules = collisions.getSchedules();
+            List<Integer> collisionReasons = collisions.getReasons();
+            for (int i = 0; i < otherMeetings.size(); i++) {
+                collector.add(schedules.get(0), collisions.getEvent(), otherSchedules.get(i), otherMeetings.get(i), collisionReasons.get(i));
+            }
+        }
+        return found.isEmpty();
+    }
+
+    /**
+     * Same check as {@link #compareSchedules()}, handing every conflicting event to the sink as soon as it is found,
+     * in the same order. Returns true if the schedule has no collisions.
+     */
+    public boolean streamConflicts(Consumer<UploadConflictResponse.ConflictEvents> sink) {
+        CollisionSweep sweep = new CollisionSweep(schedules, calendar, calendarFrom, calendarTo);
         boolean noCollisions = true;
+        int position = 0;
+        for (Conference conference : schedules.get(0).getConferences()) {
+            if (conference == null)
+                continue;
+            for (Meeting meeting : conference.getMeetings()) {
+                CollisionSweep.EventCollisions collisions = sweep.probe(meeting, position++);
+                if (!collisions.isEmpty()) {
+                    noCollisions = false;
+                    sink.accept(toConflictEvents(collisions));
+                }
+            }
+        }
+        return noCollisions;
+    }
+
+    /**
+     * Counts conflicts per reason and per conflicting schedule while sweeping, without keeping the collisions.
+     * Only the events of the requested page are looked up again to build their details.
+     */
+    public CollisionCheckResponse.ScheduleCheck checkSchedules(int page, int pageSize) {
+        CollisionSweep sweep = new CollisionSweep(schedules, calendar, calendarFrom, calendarTo);
+        CollisionSweep.Counts counts = (collisionPool != null && collisionPool.isWorthForking(schedules.get(0))) ?
+                sweep.count(collisionPool.getPool()) :
+                sweep.count();
+
+        CollisionCheckResponse.ScheduleCheck check = new CollisionCheckResponse.ScheduleCheck(
+                schedules.get(0).getFileName(), counts.getEventCount(), counts.getConflictCount(), page, pageSize);
+
+        for (CollisionReason reason : CollisionReason.REPORT_ORDER) {
+            check.conflictsByReason.put(reason.name(), counts.getConflicts(reason));
+        }
+        Map<Schedule, Integer> bySchedule = new IdentityHashMap<>();
+        for (int i = 0; i < schedules.size(); i++) {
+            if (counts.getConflicts(i) > 0)
+                bySchedule.merge(schedules.get(i), counts.getConflicts(i), Integer::sum);
+        }
+        for (Schedule schedule : schedules) {
+            Integer conflicts = bySchedule.remove(schedule);
+            if (conflicts != null)
+                check.conflictsBySchedule.add(new CollisionCheckResponse.ConflictedScheduleCount(schedule.getFileName(), conflicts));
+        }
 
-        for (Meeting meeting : thisMeetings) {
-            List<UploadConflictResponse.ConflictList> conflictLists = new ArrayList<>();
-            boolean noCollisionsEvent = true;
-            for (Schedule schedule : schedules) {
-                boolean sameSchedule = schedule.equals(thisSchedule);
-                Pair<UploadConflictResponse.ConflictList, Boolean> compare =
-                        thisSchedule.compareEventWithSchedule(meeting, schedule, sameSchedule);
-
-                if (!compare.getSecond()) {
-                    noCollisionsEvent = false;
-                    conflictLists.add(compare.getFirst());
+        List<Integer> positions = counts.getEventPositions((long) page * pageSize, pageSize);
+        if (positions.isEmpty())
+            return check;
+        int position = 0;
+        int next = 0;
+        for (Conference conference : schedules.get(0).getConferences()) {
+            if (conference == null)
+                continue;
+            for (Meeting meeting : conference.getMeetings()) {
+                if (positions.get(next) == position) {
+                    check.eventsWithConflicts.add(toConflictEvents(sweep.probe(meeting, position)));
+                    if (++next == positions.size())
+                        return check;
                 }
+                position++;
             }
-            if (!noCollisionsEvent) {
-                noCollisions = false;
-                conflictSchedule.eventsWithConflicts.add(new UploadConflictResponse
-                        .ConflictEvents(new UploadConflictResponse.ConflictMeeting(meeting), conflictLists));
+        }
+        return check;
+    }
+
+    private List<CollisionSweep.EventCollisions> sweep() {
+        CollisionSweep sweep = new CollisionSweep(schedules, calendar, calendarFrom, calendarTo);
+        return (collisionPool != null && collisionPool.isWorthForking(schedules.get(0))) ?
+                sweep.run(collisionPool.getPool()) :
+                sweep.run();
+    }
+
+    private UploadConflictResponse.ConflictEvents toConflictEvents(CollisionSweep.EventCollisions collisions) {
+        List<UploadConflictResponse.ConflictList> conflictLists = new ArrayList<>();
+        UploadConflictResponse.ConflictList conflictList = null;
+        Schedule lastSchedule = null;
+
+        List<Meeting> otherMeetings = collisions.getMeetings();
+        List<Schedule> otherSchedules = collisions.getSchedules();
+        List<Integer> collisionReasons = collisions.getReasons();
+
+        for (int i = 0; i < otherMeetings.size(); i++) {
+            Schedule otherSchedule = otherSchedules.get(i);
+            if (otherSchedule != lastSchedule) {
+                conflictList = new UploadConflictResponse.ConflictList(otherSchedule.getFileName());
+                conflictLists.add(conflictList);
+                lastSchedule = otherSchedule;
             }
+
+            otherMeetings.get(i).addConflicts(collisionReasons.get(i), conflictList.conflictedEvents);
         }
 
-        return Pair.of(conflictSchedule, noCollisions);
+        return new UploadConflictResponse.ConflictEvents(new UploadConflictResponse.ConflictMeeting(collisions.getEvent()), conflictLists,
+                (slotSuggester == null) ? null : slotSuggester.suggest(collisions.getEvent()));
     }
 }
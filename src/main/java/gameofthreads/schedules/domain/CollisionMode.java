@@ -0,0 +1,12 @@
+package gameofthreads.schedules.domain;
+
+public enum CollisionMode {
+    /**
+     * Stored schedules are kept in the occupancy index and compared in memory.
+     */
+    MEMORY,
+    /**
+     * Only meetings overlapping the upload are read from the database, using the GiST indexes on meeting.period.
+     */
+    DATABASE
+}
@@ -0,0 +1,37 @@
+package gameofthreads.schedules.domain;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Bounded fork/join pool used to check large uploads in parallel.
+ * Schedules with fewer meetings than the threshold are checked on the calling thread.
+ */
+@Component
+public class CollisionPool {
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    public CollisionPool(@Value("${app.collisions.parallelism}") int parallelism,
+                         @Value("${app.collisions.parallel-threshold}") int threshold) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.threshold = threshold;
+    }
+
+    public boolean isWorthForking(Schedule schedule) {
+        return pool.getParallelism() > 1 && schedule.getResourceBuckets().size() >= threshold;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+}
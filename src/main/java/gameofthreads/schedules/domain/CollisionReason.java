@@ -5,12 +5,28 @@ public enum CollisionReason {
     LECTURER("Prowadzący ma inne zajęcia w tym czasie."),
     GROUP("Grupa ma inne zajęcia w tym czasie.");
 
+    /**
+     * Order in which the reasons of a single pair of meetings are reported.
+     */
+    static final CollisionReason[] REPORT_ORDER = {LECTURER, ROOM, GROUP};
+
     private final String reason;
 
     CollisionReason(String reason) {
         this.reason = reason;
     }
 
+    /**
+     * Bit of this reason in the masks returned by {@link Meeting#compareMeeting(Meeting)}.
+     */
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    public boolean isIn(int reasons) {
+        return (reasons & mask()) != 0;
+    }
+
     public String toString() {
         return this.reason;
     }
@@ -0,0 +1,382 @@
+package gameofthreads.schedules.domain;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Finds collisions of the first schedule by sweeping, for every resource the schedule occupies,
+ * the start-sorted bucket of meetings sharing that resource. A meeting stays active only until it ends,
+ * so it is compared only with meetings of the same bucket that are still running.
+ */
+class CollisionSweep {
+    private static final int KEYS_PER_TASK = 8;
+
+    private final List<Schedule> schedules;
+    private final OccupancyCalendar calendar;
+    private final int calendarFrom;
+    private final int calendarTo;
+
+    CollisionSweep(List<Schedule> schedules) {
+        this(schedules, null, 0, 0);
+    }
+
+    /**
+     * The calendar has to cover at least the meetings of schedules from calendarFrom (inclusive)
+     * to calendarTo (exclusive). Uploaded meetings that do not intersect it are not compared with those schedules.
+     */
+    CollisionSweep(List<Schedule> schedules, OccupancyCalendar calendar, int calendarFrom, int calendarTo) {
+        this.schedules = schedules;
+        this.calendar = calendar;
+        this.calendarFrom = calendarFrom;
+        this.calendarTo = calendarTo;
+    }
+
+    List<EventCollisions> run() {
+        return sweep(new Found()).getCollisions();
+    }
+
+    /**
+     * Same as {@link #run()}, with the buckets swept on the given pool. Every task records into its own map
+     * and the maps are merged by meeting position, so the result does not depend on thread scheduling.
+     */
+    List<EventCollisions> run(ForkJoinPool pool) {
+        return sweep(pool, Found::new).getCollisions();
+    }
+
+    /**
+     * Same sweep as {@link #run()}, only counting the collisions instead of keeping them.
+     */
+    Counts count() {
+        return sweep(new Counts(schedules.size()));
+    }
+
+    Counts count(ForkJoinPool pool) {
+        return sweep(pool, () -> new Counts(schedules.size()));
+    }
+
+    private <F extends Findings<F>> F sweep(F findings) {
+        ResourceBuckets uploadedBuckets = schedules.get(0).getResourceBuckets();
+        for (ResourceKey key : uploadedBuckets.keys()) {
+            sweepBucket(key, uploadedBuckets.get(key), findings);
+        }
+        return findings;
+    }
+
+    private <F extends Findings<F>> F sweep(ForkJoinPool pool, Supplier<F> findings) {
+        schedules.forEach(Schedule::getResourceBuckets);
+        ResourceBuckets uploadedBuckets = schedules.get(0).getResourceBuckets();
+        List<ResourceKey> keys = new ArrayList<>(uploadedBuckets.keys());
+
+        return pool.invoke(new SweepTask<>(uploadedBuckets, keys, 0, keys.size(), findings));
+    }
+
+    /**
+     * Collisions of a single uploaded meeting, found by looking it up in every bucket it belongs to,
+     * so a check can report meeting by meeting while it runs. The position is the one the meeting
+     * has in the uploaded schedule.
+     */
+    EventCollisions probe(Meeting meeting, int position) {
+        EventCollisions collisions = new EventCollisions(meeting);
+        LocalDateTime end = ResourceBuckets.activeUntil(meeting);
+        for (ResourceKey key : ResourceKey.of(meeting)) {
+            boolean calendarHit = calendar == null || calendar.intersects(key, meeting);
+            for (int schedule = 0; schedule < schedules.size(); schedule++) {
+                if (!calendarHit && isInCalendar(schedule))
+                    continue;
+                ResourceBuckets.Bucket bucket = schedules.get(schedule).getResourceBuckets().get(key);
+                if (bucket == null)
+                    continue;
+
+                int to = bucket.upperBound(end);
+                for (int i = bucket.lowerBound(meeting.getDateStart()); i < to; i++) {
+                    if (schedule == 0 && bucket.getPosition(i) == position)
+                        continue;
+                    if (meeting.overlaps(bucket.getMeeting(i)))
+                        collisions.add(new Candidate(bucket.getMeeting(i), schedule, bucket.getPosition(i)), key.getReason());
+                }
+            }
+        }
+        return collisions;
+    }
+
+    private void sweepBucket(ResourceKey key, ResourceBuckets.Bucket uploadedBucket, Findings<?> found) {
+        LocalDateTime windowStart = uploadedBucket.getFirstStart();
+        LocalDateTime windowEnd = uploadedBucket.getLastEnd();
+        BitSet missingCalendar = new BitSet();
+        LocalDateTime calendarStart = null;
+        LocalDateTime calendarEnd = null;
+        for (int i = 0; i < uploadedBucket.size(); i++) {
+            Meeting meeting = uploadedBucket.getMeeting(i);
+            if (calendar != null && !calendar.intersects(key, meeting)) {
+                missingCalendar.set(uploadedBucket.getPosition(i));
+            } else {
+                if (calendarStart == null)
+                    calendarStart = meeting.getDateStart();
+                if (calendarEnd == null || ResourceBuckets.activeUntil(meeting).isAfter(calendarEnd))
+                    calendarEnd = ResourceBuckets.activeUntil(meeting);
+            }
+        }
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (int schedule = 0; schedule < schedules.size(); schedule++) {
+            boolean inCalendar = isInCalendar(schedule);
+            if (inCalendar && calendarStart == null)
+                continue;
+            ResourceBuckets.Bucket bucket = schedules.get(schedule).getResourceBuckets().get(key);
+            if (bucket == null)
+                continue;
+
+            int to = bucket.upperBound(inCalendar ? calendarEnd : windowEnd);
+            for (int i = bucket.lowerBound(inCalendar ? calendarStart : windowStart); i < to; i++) {
+                candidates.add(new Candidate(bucket.getMeeting(i), schedule, bucket.getPosition(i)));
+            }
+        }
+        candidates.sort(Comparator.comparing(candidate -> candidate.meeting.getDateStart()));
+
+        List<Candidate> activeUploaded = new ArrayList<>();
+        List<Candidate> activeOthers = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            retire(activeUploaded, candidate);
+            retire(activeOthers, candidate);
+
+            for (Candidate uploaded : activeUploaded) {
+                if (isCompared(uploaded, candidate, missingCalendar) && candidate.meeting.overlaps(uploaded.meeting)) {
+                    found.record(uploaded, candidate, key.getReason());
+                    if (candidate.isUploaded())
+                        found.record(candidate, uploaded, key.getReason());
+                }
+            }
+
+            if (candidate.isUploaded()) {
+                for (Candidate other : activeOthers) {
+                    if (isCompared(candidate, other, missingCalendar) && candidate.meeting.overlaps(other.meeting))
+                        found.record(candidate, other, key.getReason());
+                }
+                activeUploaded.add(candidate);
+            } else {
+                activeOthers.add(candidate);
+            }
+        }
+    }
+
+    private boolean isInCalendar(int schedule) {
+        return calendar != null && schedule >= calendarFrom && schedule < calendarTo;
+    }
+
+    /**
+     * An uploaded meeting whose slots are free in the calendar cannot collide with the schedules it covers.
+     */
+    private boolean isCompared(Candidate uploaded, Candidate other, BitSet missingCalendar) {
+        return !isInCalendar(other.schedule) || !missingCalendar.get(uploaded.position);
+    }
+
+    private static void retire(List<Candidate> active, Candidate current) {
+        active.removeIf(candidate -> ResourceBuckets.activeUntil(candidate.meeting).isBefore(current.meeting.getDateStart()));
+    }
+
+    /**
+     * What a sweep keeps of every collision it finds: the collisions themselves, or only their counts.
+     */
+    private interface Findings<F extends Findings<F>> {
+        void record(Candidate uploaded, Candidate other, CollisionReason reason);
+
+        F merge(F findings);
+    }
+
+    private class Found implements Findings<Found> {
+        private final Map<Integer, EventCollisions> collisions = new TreeMap<>();
+
+        @Override
+        public void record(Candidate uploaded, Candidate other, CollisionReason reason) {
+            collisions.computeIfAbsent(uploaded.position, position -> new EventCollisions(uploaded.meeting))
+                    .add(other, reason);
+        }
+
+        @Override
+        public Found merge(Found found) {
+            found.collisions.forEach((position, eventCollisions) -> collisions.merge(position, eventCollisions, EventCollisions::merge));
+            return this;
+        }
+
+        private List<EventCollisions> getCollisions() {
+            return new ArrayList<>(collisions.values());
+        }
+    }
+
+    /**
+     * Counts of the collisions a sweep finds, added up as they are recorded. Every collision of an uploaded
+     * meeting with another meeting on one resource is recorded once, so the counts match the reasons of
+     * {@link EventCollisions}.
+     */
+    static final class Counts implements Findings<Counts> {
+        private final BitSet events = new BitSet();
+        private final int[] byReason = new int[CollisionReason.values().length];
+        private final int[] bySchedule;
+
+        private Counts(int scheduleCount) {
+            this.bySchedule = new int[scheduleCount];
+        }
+
+        @Override
+        public void record(Candidate uploaded, Candidate other, CollisionReason reason) {
+            events.set(uploaded.position);
+            byReason[reason.ordinal()]++;
+            bySchedule[other.schedule]++;
+        }
+
+        @Override
+        public Counts merge(Counts counts) {
+            events.or(counts.events);
+            for (int i = 0; i < byReason.length; i++) {
+                byReason[i] += counts.byReason[i];
+            }
+            for (int i = 0; i < bySchedule.length; i++) {
+                bySchedule[i] += counts.bySchedule[i];
+            }
+            return this;
+        }
+
+        int getEventCount() {
+            return events.cardinality();
+        }
+
+        int getConflictCount() {
+            return Arrays.stream(byReason).sum();
+        }
+
+        int getConflicts(CollisionReason reason) {
+            return byReason[reason.ordinal()];
+        }
+
+        /**
+         * Conflicts with meetings of the schedule at the given index of the swept list.
+         */
+        int getConflicts(int schedule) {
+            return bySchedule[schedule];
+        }
+
+        /**
+         * Positions of the conflicting events ranked from first to first + count, in position order.
+         */
+        List<Integer> getEventPositions(long first, int count) {
+            List<Integer> positions = new ArrayList<>();
+            int position = events.nextSetBit(0);
+            for (long rank = 0; position >= 0 && positions.size() < count; rank++) {
+                if (rank >= first)
+                    positions.add(position);
+                position = events.nextSetBit(position + 1);
+            }
+            return positions;
+        }
+    }
+
+    private class SweepTask<F extends Findings<F>> extends RecursiveTask<F> {
+        private final ResourceBuckets uploadedBuckets;
+        private final List<ResourceKey> keys;
+        private final int from;
+        private final int to;
+        private final Supplier<F> findings;
+
+        private SweepTask(ResourceBuckets uploadedBuckets, List<ResourceKey> keys, int from, int to, Supplier<F> findings) {
+            this.uploadedBuckets = uploadedBuckets;
+            this.keys = keys;
+            this.from = from;
+            this.to = to;
+            this.findings = findings;
+        }
+
+        @Override
+        protected F compute() {
+            if (to - from <= KEYS_PER_TASK) {
+                F found = findings.get();
+                for (ResourceKey key : keys.subList(from, to)) {
+                    sweepBucket(key, uploadedBuckets.get(key), found);
+                }
+                return found;
+            }
+
+            int middle = (from + to) >>> 1;
+            SweepTask<F> left = new SweepTask<>(uploadedBuckets, keys, from, middle, findings);
+            left.fork();
+            F found = new SweepTask<>(uploadedBuckets, keys, middle, to, findings).compute();
+            return found.merge(left.join());
+        }
+    }
+
+    private static final class Candidate {
+        private final Meeting meeting;
+        private final int schedule;
+        private final int position;
+
+        private Candidate(Meeting meeting, int schedule, int position) {
+            this.meeting = meeting;
+            this.schedule = schedule;
+            this.position = position;
+        }
+
+        private boolean isUploaded() {
+            return schedule == 0;
+        }
+
+        private long order() {
+            return ((long) schedule << 32) | position;
+        }
+    }
+
+    /**
+     * Collisions of a single uploaded meeting, ordered the same way the schedules, conferences
+     * and meetings are iterated.
+     */
+    class EventCollisions {
+        private final Meeting event;
+        private final TreeMap<Long, Candidate> others = new TreeMap<>();
+        private final Map<Long, Integer> reasons = new HashMap<>();
+
+        private EventCollisions(Meeting event) {
+            this.event = event;
+        }
+
+        private void add(Candidate other, CollisionReason reason) {
+            others.putIfAbsent(other.order(), other);
+            reasons.merge(other.order(), reason.mask(), (first, second) -> first | second);
+        }
+
+        private EventCollisions merge(EventCollisions collisions) {
+            collisions.others.forEach(others::putIfAbsent);
+            collisions.reasons.forEach((order, otherReasons) -> reasons.merge(order, otherReasons, (first, second) -> first | second));
+            return this;
+        }
+
+        boolean isEmpty() {
+            return others.isEmpty();
+        }
+
+        Meeting getEvent() {
+            return event;
+        }
+
+        List<Meeting> getMeetings() {
+            List<Meeting> meetings = new ArrayList<>();
+            others.values().forEach(other -> meetings.add(other.meeting));
+            return meetings;
+        }
+
+        List<Schedule> getSchedules() {
+            List<Schedule> owners = new ArrayList<>();
+            others.values().forEach(other -> owners.add(schedules.get(other.schedule)));
+            return owners;
+        }
+
+        /**
+         * Reasons of each collision as {@link CollisionReason#mask()} bits.
+         */
+        List<Integer> getReasons() {
+            List<Integer> result = new ArrayList<>();
+            others.keySet().forEach(order -> result.add(reasons.get(order)));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package gameofthreads.schedules.domain;
+
+import gameofthreads.schedules.dto.response.CompactConflictResponse;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Collects conflicts of any number of uploaded schedules into one {@link CompactConflictResponse},
+ * giving every schedule and meeting an id the first time it shows up.
+ */
+public class CompactConflictCollector {
+    private final Map<Schedule, Integer> scheduleIds = new IdentityHashMap<>();
+    private final Map<Meeting, Integer> meetingIds = new IdentityHashMap<>();
+    private final CompactConflictResponse response = new CompactConflictResponse(Arrays.stream(CollisionReason.values())
+            .map(CollisionReason::toString)
+            .collect(Collectors.toList()));
+
+    void add(Schedule schedule, Meeting event, Schedule otherSchedule, Meeting otherMeeting, int reasons) {
+        int eventId = meetingId(schedule, event);
+        int otherEventId = meetingId(otherSchedule, otherMeeting);
+        for (CollisionReason reason : CollisionReason.REPORT_ORDER) {
+            if (reason.isIn(reasons))
+                response.conflicts.add(new int[]{eventId, otherEventId, reason.ordinal()});
+        }
+    }
+
+    private int meetingId(Schedule schedule, Meeting meeting) {
+        Integer id = meetingIds.get(meeting);
+        if (id == null) {
+            id = response.meetings.size();
+            meetingIds.put(meeting, id);
+            response.meetings.add(new CompactConflictResponse.CompactMeeting(id, scheduleId(schedule), meeting));
+        }
+        return id;
+    }
+
+    private int scheduleId(Schedule schedule) {
+        Integer id = scheduleIds.get(schedule);
+        if (id == null) {
+            id = response.schedules.size();
+            scheduleIds.put(schedule, id);
+            response.schedules.add(schedule.getFileName());
+        }
+        return id;
+    }
+
+    public boolean isEmpty() {
+        return response.conflicts.isEmpty();
+    }
+
+    public CompactConflictResponse getResponse() {
+        return response;
+    }
+
+}
@@ -0,0 +1,342 @@
+package gameofthreads.schedules.domain;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Number of conflicts between every two stored schedules, split by reason. A pair of meetings colliding
+ * for two reasons counts as two conflicts, the same way a collision check counts them. Conflicts inside
+ * a single schedule are kept as the pair of the schedule with itself.
+ * <p>
+ * A full scan sweeps every resource once across all schedules. Afterwards a stored, replaced or deleted
+ * schedule only recomputes the pairs it is part of, looking its meetings up in the start-sorted
+ * meetings of each resource.
+ */
+public class ConflictMatrix {
+    private static final int KEYS_PER_TASK = 64;
+
+    private final Map<Integer, Schedule> schedules = new TreeMap<>();
+    private final Map<Integer, Map<Integer, int[]>> rows = new HashMap<>();
+    private final Map<ResourceKey, Occupants> occupants = new HashMap<>();
+    private LocalDateTime scannedAt;
+    private Map<Integer, Schedule> pendingChanges;
+
+    /**
+     * Replaces the matrix with one computed from scratch. Changes applied while the scan runs are replayed
+     * on top of its result, so a scan started from older data does not undo them.
+     */
+    public void rebuild(Collection<Schedule> scannedSchedules, ForkJoinPool pool) {
+        synchronized (this) {
+            pendingChanges = new LinkedHashMap<>();
+        }
+
+        Map<ResourceKey, List<Occupant>> grouped = new HashMap<>();
+        for (Schedule schedule : scannedSchedules) {
+            group(schedule, schedule.getId(), grouped);
+        }
+
+        List<Map.Entry<ResourceKey, List<Occupant>>> keys = new ArrayList<>(grouped.entrySet());
+        Map<Long, int[]> pairs = pool.invoke(new ScanTask(keys, 0, keys.size()));
+
+        synchronized (this) {
+            schedules.clear();
+            rows.clear();
+            occupants.clear();
+            scannedSchedules.forEach(schedule -> schedules.put(schedule.getId(), schedule));
+            pairs.forEach((pair, counts) -> addRow((int) (pair >> 32), (int) (long) pair, counts));
+            grouped.forEach((key, keyOccupants) -> occupants.put(key, new Occupants(keyOccupants)));
+            scannedAt = LocalDateTime.now();
+
+            Map<Integer, Schedule> changes = pendingChanges;
+            pendingChanges = null;
+            changes.forEach((scheduleId, schedule) -> {
+                if (schedule == null)
+                    remove(scheduleId);
+                else
+                    put(schedule);
+            });
+        }
+    }
+
+    /**
+     * Conflicts between schedules that are not stored, each known by its position in the list.
+     * Computed with the same sweep as a full scan, leaving the matrix itself untouched.
+     */
+    public static List<PairConflicts> between(List<Schedule> unstoredSchedules, ForkJoinPool pool) {
+        Map<ResourceKey, List<Occupant>> grouped = new HashMap<>();
+        for (int position = 0; position < unstoredSchedules.size(); position++) {
+            group(unstoredSchedules.get(position), position, grouped);
+        }
+
+        List<Map.Entry<ResourceKey, List<Occupant>>> keys = new ArrayList<>(grouped.entrySet());
+        List<PairConflicts> result = new ArrayList<>();
+        pool.invoke(new ScanTask(keys, 0, keys.size())).forEach((pair, counts) ->
+                result.add(new PairConflicts((int) (pair >> 32), (int) (long) pair, counts)));
+        return result;
+    }
+
+    public synchronized void put(Schedule schedule) {
+        remove(schedule.getId());
+        if (pendingChanges != null)
+            pendingChanges.put(schedule.getId(), schedule);
+
+        Map<Long, int[]> found = new HashMap<>();
+        ResourceBuckets buckets = schedule.getResourceBuckets();
+        for (ResourceKey key : buckets.keys()) {
+            ResourceBuckets.Bucket bucket = buckets.get(key);
+            List<Occupant> own = new ArrayList<>(bucket.size());
+            for (int i = 0; i < bucket.size(); i++) {
+                own.add(new Occupant(bucket.getMeeting(i), schedule.getId()));
+            }
+            sweep(key, own, found);
+
+            Occupants stored = occupants.get(key);
+            if (stored != null) {
+                for (Occupant occupant : own) {
+                    stored.countOverlapping(key, occupant, found);
+                }
+            }
+            occupants.put(key, (stored == null) ? new Occupants(own) : stored.with(own));
+        }
+
+        found.forEach((pair, counts) -> addRow((int) (pair >> 32), (int) (long) pair, counts));
+        schedules.put(schedule.getId(), schedule);
+    }
+
+    public synchronized void remove(Integer scheduleId) {
+        if (pendingChanges != null)
+            pendingChanges.put(scheduleId, null);
+        Schedule schedule = schedules.remove(scheduleId);
+        if (schedule == null)
+            return;
+
+        for (ResourceKey key : schedule.getResourceBuckets().keys()) {
+            Occupants remaining = occupants.get(key).without(scheduleId);
+            if (remaining == null)
+                occupants.remove(key);
+            else
+                occupants.put(key, remaining);
+        }
+
+        Map<Integer, int[]> row = rows.remove(scheduleId);
+        if (row != null) {
+            for (Integer otherScheduleId : row.keySet()) {
+                Map<Integer, int[]> otherRow = rows.get(otherScheduleId);
+                if (otherRow != null)
+                    otherRow.remove(scheduleId);
+            }
+        }
+    }
+
+    /**
+     * Time of the last full scan, null before the first one finished.
+     */
+    public synchronized LocalDateTime getScannedAt() {
+        return scannedAt;
+    }
+
+    /**
+     * Schedules known to the matrix, ordered by id.
+     */
+    public synchronized List<Schedule> getSchedules() {
+        return new ArrayList<>(schedules.values());
+    }
+
+    /**
+     * Pairs with at least one conflict, ordered by the ids of the schedules. The smaller id comes first.
+     */
+    public synchronized List<PairConflicts> getPairs() {
+        List<PairConflicts> result = new ArrayList<>();
+        for (Integer scheduleId : schedules.keySet()) {
+            Map<Integer, int[]> row = rows.get(scheduleId);
+            if (row == null)
+                continue;
+            new TreeMap<>(row).tailMap(scheduleId).forEach((otherScheduleId, counts) ->
+                    result.add(new PairConflicts(scheduleId, otherScheduleId, counts.clone())));
+        }
+        return result;
+    }
+
+    private void addRow(int scheduleId, int otherScheduleId, int[] counts) {
+        rows.computeIfAbsent(scheduleId, id -> new HashMap<>()).put(otherScheduleId, counts);
+        rows.computeIfAbsent(otherScheduleId, id -> new HashMap<>()).put(scheduleId, counts);
+    }
+
+    private static void group(Schedule schedule, int scheduleId, Map<ResourceKey, List<Occupant>> grouped) {
+        ResourceBuckets buckets = schedule.getResourceBuckets();
+        for (ResourceKey key : buckets.keys()) {
+            List<Occupant> keyOccupants = grouped.computeIfAbsent(key, k -> new ArrayList<>());
+            ResourceBuckets.Bucket bucket = buckets.get(key);
+            for (int i = 0; i < bucket.size(); i++) {
+                keyOccupants.add(new Occupant(bucket.getMeeting(i), scheduleId));
+            }
+        }
+    }
+
+    private static long pair(int scheduleId, int otherScheduleId) {
+        int first = Math.min(scheduleId, otherScheduleId);
+        int second = Math.max(scheduleId, otherScheduleId);
+        return ((long) first << 32) | (second & 0xFFFFFFFFL);
+    }
+
+    private static void count(Map<Long, int[]> pairs, int scheduleId, int otherScheduleId, CollisionReason reason) {
+        pairs.computeIfAbsent(pair(scheduleId, otherScheduleId), p -> new int[CollisionReason.values().length])[reason.ordinal()]++;
+    }
+
+    /**
+     * Sweeps the meetings of a resource in start order, counting every two that overlap.
+     */
+    private static void sweep(ResourceKey key, List<Occupant> keyOccupants, Map<Long, int[]> pairs) {
+        keyOccupants.sort(Comparator.comparing(occupant -> occupant.meeting.getDateStart()));
+        List<Occupant> active = new ArrayList<>();
+        for (Occupant occupant : keyOccupants) {
+            active.removeIf(other -> ResourceBuckets.activeUntil(other.meeting).isBefore(occupant.meeting.getDateStart()));
+            for (Occupant other : active) {
+                if (occupant.meeting.overlaps(other.meeting))
+                    count(pairs, occupant.scheduleId, other.scheduleId, key.getReason());
+            }
+            active.add(occupant);
+        }
+    }
+
+    private static final class Occupant {
+        private final Meeting meeting;
+        private final int scheduleId;
+
+        private Occupant(Meeting meeting, int scheduleId) {
+            this.meeting = meeting;
+            this.scheduleId = scheduleId;
+        }
+    }
+
+    /**
+     * Meetings of every schedule occupying one resource, sorted by start time.
+     */
+    private static final class Occupants {
+        private final Occupant[] sorted;
+        private final Duration longest;
+
+        private Occupants(List<Occupant> keyOccupants) {
+            keyOccupants.sort(Comparator.comparing(occupant -> occupant.meeting.getDateStart()));
+            this.sorted = keyOccupants.toArray(new Occupant[0]);
+
+            Duration longestMeeting = Duration.ZERO;
+            for (Occupant occupant : sorted) {
+                Duration length = Duration.between(occupant.meeting.getDateStart(), ResourceBuckets.activeUntil(occupant.meeting));
+                if (length.compareTo(longestMeeting) > 0)
+                    longestMeeting = length;
+            }
+            this.longest = longestMeeting;
+        }
+
+        private Occupants with(List<Occupant> added) {
+            List<Occupant> keyOccupants = new ArrayList<>(Arrays.asList(sorted));
+            keyOccupants.addAll(added);
+            return new Occupants(keyOccupants);
+        }
+
+        /**
+         * Null once the last meeting is gone.
+         */
+        private Occupants without(int scheduleId) {
+            List<Occupant> keyOccupants = new ArrayList<>(sorted.length);
+            for (Occupant occupant : sorted) {
+                if (occupant.scheduleId != scheduleId)
+                    keyOccupants.add(occupant);
+            }
+            return keyOccupants.isEmpty() ? null : new Occupants(keyOccupants);
+        }
+
+        private void countOverlapping(ResourceKey key, Occupant occupant, Map<Long, int[]> pairs) {
+            LocalDateTime earliestStart = occupant.meeting.getDateStart().minus(longest);
+            LocalDateTime end = ResourceBuckets.activeUntil(occupant.meeting);
+            int low = 0, high = sorted.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (sorted[middle].meeting.getDateStart().isBefore(earliestStart))
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+
+            for (int i = low; i < sorted.length && !sorted[i].meeting.getDateStart().isAfter(end); i++) {
+                if (occupant.meeting.overlaps(sorted[i].meeting))
+                    count(pairs, occupant.scheduleId, sorted[i].scheduleId, key.getReason());
+            }
+        }
+    }
+
+    private static class ScanTask extends RecursiveTask<Map<Long, int[]>> {
+        private final List<Map.Entry<ResourceKey, List<Occupant>>> keys;
+        private final int from;
+        private final int to;
+
+        private ScanTask(List<Map.Entry<ResourceKey, List<Occupant>>> keys, int from, int to) {
+            this.keys = keys;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<Long, int[]> compute() {
+            if (to - from <= KEYS_PER_TASK) {
+                Map<Long, int[]> pairs = new HashMap<>();
+                for (Map.Entry<ResourceKey, List<Occupant>> key : keys.subList(from, to)) {
+                    sweep(key.getKey(), key.getValue(), pairs);
+                }
+                return pairs;
+            }
+
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(keys, from, middle);
+            left.fork();
+            Map<Long, int[]> pairs = new ScanTask(keys, middle, to).compute();
+            left.join().forEach((pair, counts) -> pairs.merge(pair, counts, (first, second) -> {
+                for (int reason = 0; reason < first.length; reason++) {
+                    first[reason] += second[reason];
+                }
+                return first;
+            }));
+            return pairs;
+        }
+    }
+
+    public static final class PairConflicts {
+        private final int scheduleId;
+        private final int otherScheduleId;
+        private final int[] counts;
+
+        private PairConflicts(int scheduleId, int otherScheduleId, int[] counts) {
+            this.scheduleId = scheduleId;
+            this.otherScheduleId = otherScheduleId;
+            this.counts = counts;
+        }
+
+        public int getScheduleId() {
+            return scheduleId;
+        }
+
+        public int getOtherScheduleId() {
+            return otherScheduleId;
+        }
+
+        public int getConflictCount() {
+            return Arrays.stream(counts).sum();
+        }
+
+        /**
+         * Conflict counts by reason name, in report order.
+         */
+        public Map<String, Integer> getConflictsByReason() {
+            Map<String, Integer> byReason = new LinkedHashMap<>();
+            for (CollisionReason reason : CollisionReason.REPORT_ORDER) {
+                byReason.put(reason.name(), counts[reason.ordinal()]);
+            }
+            return byReason;
+        }
+    }
+
+}
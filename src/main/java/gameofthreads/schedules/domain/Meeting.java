@@ -4,10 +4,9 @@ import gameofthreads.schedules.dto.response.UploadConflictResponse;
 import gameofthreads.schedules.entity.MeetingEntity;
 import gameofthreads.schedules.entity.MeetingFormat;
 import gameofthreads.schedules.entity.MeetingType;
-import org.springframework.data.util.Pair;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class Meeting {
@@ -22,19 +21,25 @@ public class Meeting {
     private final Integer lengthInHours;
     private final MeetingFormat format;
     private final String room;
+    private final int groupId;
+    private final int lecturerId;
+    private final int roomId;
 
     private Meeting(MeetingBuilder meetingBuilder) {
         this.conference = meetingBuilder.conference;
         this.dateStart = meetingBuilder.dateStart;
         this.dateEnd = meetingBuilder.dateEnd;
         this.subject = meetingBuilder.subject;
-        this.group = meetingBuilder.group;
-        this.lecturerName = meetingBuilder.lecturerName;
-        this.lecturerSurname = meetingBuilder.lecturerSurname;
+        this.group = ResourceDictionary.intern(meetingBuilder.group);
+        this.lecturerName = ResourceDictionary.intern(meetingBuilder.lecturerName);
+        this.lecturerSurname = ResourceDictionary.intern(meetingBuilder.lecturerSurname);
         this.type = meetingBuilder.type;
         this.lengthInHours = meetingBuilder.lengthInHours;
         this.format = meetingBuilder.format;
-        this.room = meetingBuilder.room;
+        this.room = ResourceDictionary.intern(meetingBuilder.room);
+        this.groupId = ResourceDictionary.groupId(group);
+        this.lecturerId = ResourceDictionary.lecturerId(lecturerName, lecturerSurname);
+        this.roomId = ResourceDictionary.roomId(room);
     }
 
     public Meeting(Conference conference, MeetingEntity meetingEntity) {
@@ -42,13 +47,36 @@ public class Meeting {
         this.dateStart = meetingEntity.getDateStart();
         this.dateEnd = meetingEntity.getDateEnd();
         this.subject = meetingEntity.getSubject();
-        this.group = meetingEntity.getGroup();
-        this.lecturerName = meetingEntity.getLecturerName();
-        this.lecturerSurname = meetingEntity.getLecturerSurname();
+        this.group = ResourceDictionary.intern(meetingEntity.getGroup());
+        this.lecturerName = ResourceDictionary.intern(meetingEntity.getLecturerName());
+        this.lecturerSurname = ResourceDictionary.intern(meetingEntity.getLecturerSurname());
         this.type = meetingEntity.getType();
         this.lengthInHours = meetingEntity.getLengthInHours();
         this.format = meetingEntity.getFormat();
-        this.room = meetingEntity.getRoom();
+        this.room = ResourceDictionary.intern(meetingEntity.getRoom());
+        this.groupId = ResourceDictionary.groupId(group);
+        this.lecturerId = ResourceDictionary.lecturerId(lecturerName, lecturerSurname);
+        this.roomId = ResourceDictionary.roomId(room);
+    }
+
+    /**
+     * Same meeting in another conference.
+     */
+    Meeting(Conference conference, Meeting meeting) {
+        this.conference = conference;
+        this.dateStart = meeting.dateStart;
+        this.dateEnd = meeting.dateEnd;
+        this.subject = meeting.subject;
+        this.group = meeting.group;
+        this.lecturerName = meeting.lecturerName;
+        this.lecturerSurname = meeting.lecturerSurname;
+        this.type = meeting.type;
+        this.lengthInHours = meeting.lengthInHours;
+        this.format = meeting.format;
+        this.room = meeting.room;
+        this.groupId = meeting.groupId;
+        this.lecturerId = meeting.lecturerId;
+        this.roomId = meeting.roomId;
     }
 
     /***
@@ -57,30 +85,45 @@ public class Meeting {
      * P1 starts between the start and end of P2 (P2.from <= P1.from <= P2.to)
      * P2 starts between the start and end of P1 (P1.from <= P2.from <= P1.to)
      */
-    public Pair<List<UploadConflictResponse.Conflict>, Boolean> compareMeeting(Meeting otherMeeting) {
+    public boolean overlaps(Meeting otherMeeting) {
         boolean overlap1 = !otherMeeting.getDateStart().isAfter(dateStart) && !dateStart.isAfter(otherMeeting.getDateEnd());
         boolean overlap2 = !dateStart.isAfter(otherMeeting.getDateStart()) && !otherMeeting.getDateStart().isAfter(dateEnd);
-        List<UploadConflictResponse.Conflict> conflicts = new ArrayList<>();
-        if (overlap1 || overlap2) {
-            CollisionReason lecturerOverlap = lecturerName.equals(otherMeeting.getLecturerName())
-                    && lecturerSurname.equals(otherMeeting.getLecturerSurname()) ? CollisionReason.LECTURER : null;
-            CollisionReason roomOverlap = !(format == MeetingFormat.HOME ||
-                    otherMeeting.getFormat() == MeetingFormat.HOME) &&
-                    room.equals(otherMeeting.getRoom()) ? CollisionReason.ROOM : null;
-            CollisionReason groupOverlap = group.equals(otherMeeting.getGroup()) ? CollisionReason.GROUP : null;
-
-            for (CollisionReason reason : new CollisionReason[]{lecturerOverlap, roomOverlap, groupOverlap}) {
-                if (reason != null)
-                    conflicts.add(new UploadConflictResponse
-                            .Conflict(reason.toString(), new UploadConflictResponse.ConflictMeeting(otherMeeting)));
-            }
-
-            if (conflicts.size() != 0) {
-                return Pair.of(conflicts, Boolean.FALSE);
-            }
-        }
+        return overlap1 || overlap2;
+    }
+
+    /**
+     * Reasons the meetings collide for, as a mask of {@link CollisionReason#mask()} bits, 0 if they do not collide.
+     */
+    public int compareMeeting(Meeting otherMeeting) {
+        if (!overlaps(otherMeeting))
+            return 0;
+
+        int reasons = 0;
+        if (lecturerId == otherMeeting.lecturerId)
+            reasons |= CollisionReason.LECTURER.mask();
+        if (!(format == MeetingFormat.HOME || otherMeeting.getFormat() == MeetingFormat.HOME) && roomId == otherMeeting.roomId)
+            reasons |= CollisionReason.ROOM.mask();
+        if (groupId == otherMeeting.groupId)
+            reasons |= CollisionReason.GROUP.mask();
+        return reasons;
+    }
+
+    /**
+     * Everything a meeting row holds, for matching a re-uploaded meeting with the stored one.
+     */
+    public List<Object> contentKey() {
+        return Arrays.asList(dateStart, dateEnd, subject, group, lecturerName, lecturerSurname, type, lengthInHours, format, room);
+    }
 
-        return Pair.of(conflicts, Boolean.TRUE);
+    /**
+     * Adds a conflict with this meeting for every reason in the mask, in report order.
+     */
+    public void addConflicts(int reasons, List<UploadConflictResponse.Conflict> conflicts) {
+        UploadConflictResponse.ConflictMeeting conflictMeeting = new UploadConflictResponse.ConflictMeeting(this);
+        for (CollisionReason reason : CollisionReason.REPORT_ORDER) {
+            if (reason.isIn(reasons))
+                conflicts.add(new UploadConflictResponse.Conflict(reason.toString(), conflictMeeting));
+        }
     }
 
     public Conference getConference() {
@@ -127,6 +170,18 @@ public class Meeting {
         return room;
     }
 
+    public int getGroupId() {
+        return groupId;
+    }
+
+    public int getLecturerId() {
+        return lecturerId;
+    }
+
+    public int getRoomId() {
+        return roomId;
+    }
+
     public static final class MeetingBuilder {
         private Conference conference;
         private LocalDateTime dateStart;
@@ -0,0 +1,189 @@
+package gameofthreads.schedules.domain;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Occupied 5 minute slots of every room, lecturer and group, kept per day as a bitset.
+ * A meeting occupies every slot it touches, including the one its end falls into, so two meetings
+ * whose slots do not intersect can never collide. For meetings aligned to the grid an intersection
+ * is a collision too; anything else still goes through exact interval comparison. Days remember
+ * how many of their meetings are off the grid, so they know when their slots can be trusted that far.
+ */
+public class OccupancyCalendar {
+    public static final int SLOT_MINUTES = 5;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+
+    private final Map<ResourceKey, Map<LocalDate, Day>> calendar = new ConcurrentHashMap<>();
+
+    public void add(Schedule schedule) {
+        update(schedule, 1);
+    }
+
+    public void remove(Schedule schedule) {
+        update(schedule, -1);
+    }
+
+    public void clear() {
+        calendar.clear();
+    }
+
+    /**
+     * Days whose slots are all free again are dropped, and so are resources with no days left,
+     * so the calendar holds only what stored schedules occupy.
+     */
+    private void update(Schedule schedule, int delta) {
+        ResourceBuckets buckets = schedule.getResourceBuckets();
+        for (ResourceKey key : buckets.keys()) {
+            ResourceBuckets.Bucket bucket = buckets.get(key);
+            calendar.compute(key, (k, days) -> {
+                if (days == null)
+                    days = new ConcurrentHashMap<>();
+                for (int i = 0; i < bucket.size(); i++) {
+                    update(days, bucket.getMeeting(i), delta);
+                }
+                return days.isEmpty() ? null : days;
+            });
+        }
+    }
+
+    private static void update(Map<LocalDate, Day> days, Meeting meeting, int delta) {
+        LocalDateTime end = ResourceBuckets.activeUntil(meeting);
+        int offGrid = isOnGrid(meeting) ? 0 : delta;
+        for (LocalDate day = meeting.getDateStart().toLocalDate(); !day.isAfter(end.toLocalDate()); day = day.plusDays(1)) {
+            int from = firstSlot(meeting.getDateStart(), day);
+            int to = lastSlot(end, day);
+            days.compute(day, (d, occupied) -> {
+                if (occupied == null)
+                    occupied = new Day();
+                occupied.update(from, to, delta, offGrid);
+                return occupied.isFree() ? null : occupied;
+            });
+        }
+    }
+
+    /**
+     * False only if the meeting cannot collide with any meeting in the calendar on the given resource.
+     */
+    public boolean intersects(ResourceKey key, Meeting meeting) {
+        Map<LocalDate, Day> days = calendar.get(key);
+        if (days == null)
+            return false;
+
+        LocalDateTime end = ResourceBuckets.activeUntil(meeting);
+        for (LocalDate day = meeting.getDateStart().toLocalDate(); !day.isAfter(end.toLocalDate()); day = day.plusDays(1)) {
+            Day occupied = days.get(day);
+            if (occupied != null && occupied.intersects(firstSlot(meeting.getDateStart(), day), lastSlot(end, day)))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * True only if the meeting surely collides with a meeting in the calendar on the given resource, decided from
+     * the slots alone. That takes the meeting and every meeting of a day they share to be aligned to the grid;
+     * otherwise false, and the meeting has to be compared exactly.
+     */
+    public boolean collides(ResourceKey key, Meeting meeting) {
+        Map<LocalDate, Day> days = calendar.get(key);
+        if (days == null || !isOnGrid(meeting))
+            return false;
+
+        LocalDateTime end = ResourceBuckets.activeUntil(meeting);
+        for (LocalDate day = meeting.getDateStart().toLocalDate(); !day.isAfter(end.toLocalDate()); day = day.plusDays(1)) {
+            Day occupied = days.get(day);
+            if (occupied != null && occupied.isAllOnGrid() && occupied.intersects(firstSlot(meeting.getDateStart(), day), lastSlot(end, day)))
+                return true;
+        }
+        return false;
+    }
+
+    public BitSet getOccupiedSlots(ResourceKey key, LocalDate day) {
+        Map<LocalDate, Day> days = calendar.get(key);
+        Day occupied = (days == null) ? null : days.get(day);
+        return (occupied == null) ? new BitSet(SLOTS_PER_DAY) : occupied.toBitSet();
+    }
+
+    /**
+     * Starts and ends at the beginning of a slot, so its slots cover exactly the time it runs.
+     */
+    static boolean isOnGrid(Meeting meeting) {
+        return isSlotStart(meeting.getDateStart()) && isSlotStart(ResourceBuckets.activeUntil(meeting));
+    }
+
+    private static boolean isSlotStart(LocalDateTime time) {
+        return time.getMinute() % SLOT_MINUTES == 0 && time.getSecond() == 0 && time.getNano() == 0;
+    }
+
+    private static int firstSlot(LocalDateTime start, LocalDate day) {
+        return start.toLocalDate().isBefore(day) ? 0 : slotOf(start);
+    }
+
+    private static int lastSlot(LocalDateTime end, LocalDate day) {
+        return end.toLocalDate().isAfter(day) ? SLOTS_PER_DAY - 1 : slotOf(end);
+    }
+
+    private static int slotOf(LocalDateTime time) {
+        return (time.getHour() * 60 + time.getMinute()) / SLOT_MINUTES;
+    }
+
+    /**
+     * Counts meetings per slot, so removing a schedule clears only slots no other meeting occupies.
+     */
+    private static class Day {
+        private final int[] counts = new int[SLOTS_PER_DAY];
+        private final AtomicLongArray bits = new AtomicLongArray((SLOTS_PER_DAY + 63) / 64);
+        private long total;
+        private int offGrid;
+
+        private synchronized void update(int from, int to, int delta, int offGridDelta) {
+            total += (long) delta * (to - from + 1);
+            offGrid += offGridDelta;
+            for (int slot = from; slot <= to; slot++) {
+                counts[slot] += delta;
+            }
+            for (int word = from >>> 6; word <= to >>> 6; word++) {
+                long value = 0;
+                for (int bit = 0; bit < 64 && (word << 6) + bit < SLOTS_PER_DAY; bit++) {
+                    if (counts[(word << 6) + bit] > 0)
+                        value |= 1L << bit;
+                }
+                bits.set(word, value);
+            }
+        }
+
+        private synchronized boolean isFree() {
+            return total == 0;
+        }
+
+        private synchronized boolean isAllOnGrid() {
+            return offGrid == 0;
+        }
+
+        private boolean intersects(int from, int to) {
+            for (int word = from >>> 6; word <= to >>> 6; word++) {
+                long mask = -1L;
+                if (word == from >>> 6)
+                    mask &= -1L << (from & 63);
+                if (word == to >>> 6)
+                    mask &= -1L >>> (63 - (to & 63));
+                if ((bits.get(word) & mask) != 0)
+                    return true;
+            }
+            return false;
+        }
+
+        private BitSet toBitSet() {
+            long[] words = new long[bits.length()];
+            for (int word = 0; word < words.length; word++) {
+                words[word] = bits.get(word);
+            }
+            return BitSet.valueOf(words);
+        }
+    }
+
+}
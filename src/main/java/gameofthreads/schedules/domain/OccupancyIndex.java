@@ -0,0 +1,126 @@
+package gameofthreads.schedules.domain;
+
+import gameofthreads.schedules.entity.ScheduleEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Room, lecturer and group occupancy of every stored schedule, held as domain meetings built from
+ * MeetingEntity rows. Collision checks read it instead of parsing the stored excel files again.
+ * Stays empty in {@link CollisionMode#DATABASE} mode, listeners still hear of every stored change.
+ */
+@Component
+public class OccupancyIndex {
+    private final ConcurrentSkipListMap<Integer, Schedule> schedules = new ConcurrentSkipListMap<>();
+    private final OccupancyCalendar calendar = new OccupancyCalendar();
+    private final OccupancyTimeline timeline = new OccupancyTimeline();
+    private final AtomicLong version = new AtomicLong();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final CollisionMode collisionMode;
+
+    public OccupancyIndex(@Value("${app.collisions.mode}") CollisionMode collisionMode) {
+        this.collisionMode = collisionMode;
+    }
+
+    public boolean isEnabled() {
+        return collisionMode == CollisionMode.MEMORY;
+    }
+
+    /**
+     * Replaces the index with the given schedules. The timeline of each resource is built once from all of them
+     * rather than growing schedule by schedule.
+     */
+    public void load(Collection<ScheduleEntity> scheduleEntities) {
+        schedules.clear();
+        calendar.clear();
+        timeline.clear();
+        if (isEnabled()) {
+            List<Schedule> loaded = new ArrayList<>(scheduleEntities.size());
+            for (ScheduleEntity scheduleEntity : scheduleEntities) {
+                Schedule schedule = new Schedule(scheduleEntity);
+                calendar.add(schedule);
+                schedules.put(schedule.getId(), schedule);
+                loaded.add(schedule);
+            }
+            timeline.addAll(loaded);
+        }
+        version.incrementAndGet();
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void put(Schedule schedule) {
+        if (isEnabled()) {
+            calendar.add(schedule);
+            timeline.add(schedule);
+            Schedule previous = schedules.put(schedule.getId(), schedule);
+            if (previous != null) {
+                calendar.remove(previous);
+                timeline.remove(previous);
+            }
+            version.incrementAndGet();
+        }
+        listeners.forEach(listener -> listener.stored(schedule));
+    }
+
+    public void remove(Integer scheduleId) {
+        Schedule previous = schedules.remove(scheduleId);
+        if (previous != null) {
+            calendar.remove(previous);
+            timeline.remove(previous);
+            version.incrementAndGet();
+        }
+        listeners.forEach(listener -> listener.removed(scheduleId));
+    }
+
+    /**
+     * Changes whenever a schedule is added, replaced or removed.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Slots occupied by the indexed schedules. It is updated around the schedule map, so while a schedule
+     * is being replaced the calendar may briefly hold both versions.
+     */
+    public OccupancyCalendar getCalendar() {
+        return calendar;
+    }
+
+    /**
+     * Exact busy intervals of the indexed schedules, kept in step with the calendar.
+     */
+    public OccupancyTimeline getTimeline() {
+        return timeline;
+    }
+
+    public List<Schedule> getSchedules() {
+        return new ArrayList<>(schedules.values());
+    }
+
+    public List<Schedule> getSchedulesWithoutId(Integer scheduleId) {
+        List<Schedule> result = new ArrayList<>(schedules.headMap(scheduleId).values());
+        result.addAll(schedules.tailMap(scheduleId, false).values());
+        return result;
+    }
+
+    /**
+     * Told about schedules after their transaction commits. Not told about the initial load.
+     */
+    public interface Listener {
+        void stored(Schedule schedule);
+
+        void removed(Integer scheduleId);
+    }
+
+}
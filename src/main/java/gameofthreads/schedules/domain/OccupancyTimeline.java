@@ -0,0 +1,194 @@
+package gameofthreads.schedules.domain;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Exact busy intervals of every room, lecturer and group, each resource kept as one start-sorted array.
+ * Arrays are replaced as a whole when a schedule is added or removed, so queries never lock and only
+ * binary search their way to the asked range.
+ */
+public class OccupancyTimeline {
+    private final Map<ResourceKey, Timeline> timelines = new ConcurrentHashMap<>();
+
+    public void add(Schedule schedule) {
+        ResourceBuckets buckets = schedule.getResourceBuckets();
+        for (ResourceKey key : buckets.keys()) {
+            ResourceBuckets.Bucket bucket = buckets.get(key);
+            timelines.compute(key, (k, timeline) -> Timeline.with(timeline, bucket));
+        }
+    }
+
+    /**
+     * Adds many schedules at once, gathering the meetings of every resource first so each resource is sorted once.
+     */
+    public void addAll(Collection<Schedule> schedules) {
+        Map<ResourceKey, List<Meeting>> grouped = new HashMap<>();
+        for (Schedule schedule : schedules) {
+            ResourceBuckets buckets = schedule.getResourceBuckets();
+            for (ResourceKey key : buckets.keys()) {
+                ResourceBuckets.Bucket bucket = buckets.get(key);
+                List<Meeting> meetings = grouped.computeIfAbsent(key, k -> new ArrayList<>());
+                for (int i = 0; i < bucket.size(); i++) {
+                    meetings.add(bucket.getMeeting(i));
+                }
+            }
+        }
+        grouped.forEach((key, meetings) -> timelines.compute(key, (k, timeline) -> Timeline.withAll(timeline, meetings)));
+    }
+
+    public void remove(Schedule schedule) {
+        ResourceBuckets buckets = schedule.getResourceBuckets();
+        for (ResourceKey key : buckets.keys()) {
+            ResourceBuckets.Bucket bucket = buckets.get(key);
+            timelines.computeIfPresent(key, (k, timeline) -> timeline.without(bucket));
+        }
+    }
+
+    public void clear() {
+        timelines.clear();
+    }
+
+    /**
+     * Gaps between the meetings of any of the resources within the given range, in time order.
+     * Intervals are closed, so a free interval starts at the instant the previous meeting ends
+     * and ends at the instant the next one starts; a meeting exactly filling it touches both neighbours.
+     */
+    public List<Interval> findFree(Collection<ResourceKey> keys, LocalDateTime from, LocalDateTime to) {
+        return findFree(List.of(this), keys, from, to, null);
+    }
+
+    /**
+     * Same as {@link #findFree(Collection, LocalDateTime, LocalDateTime)} over the meetings of all the timelines,
+     * leaving out the excluded meeting if it is given.
+     */
+    public static List<Interval> findFree(Collection<OccupancyTimeline> occupancyTimelines, Collection<ResourceKey> keys,
+                                          LocalDateTime from, LocalDateTime to, Meeting excluded) {
+        List<Interval> busy = new ArrayList<>();
+        for (OccupancyTimeline occupancyTimeline : occupancyTimelines) {
+            for (ResourceKey key : keys) {
+                Timeline timeline = occupancyTimeline.timelines.get(key);
+                if (timeline != null)
+                    timeline.collect(from, to, excluded, busy);
+            }
+        }
+        busy.sort(Comparator.comparing(Interval::getFrom));
+
+        List<Interval> free = new ArrayList<>();
+        LocalDateTime freeFrom = from;
+        for (Interval interval : busy) {
+            if (interval.getFrom().isAfter(freeFrom))
+                free.add(new Interval(freeFrom, interval.getFrom()));
+            if (interval.getTo().isAfter(freeFrom))
+                freeFrom = interval.getTo();
+        }
+        if (to.isAfter(freeFrom))
+            free.add(new Interval(freeFrom, to));
+        return free;
+    }
+
+    public static final class Interval {
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+
+        public Interval(LocalDateTime from, LocalDateTime to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        public LocalDateTime getFrom() {
+            return from;
+        }
+
+        public LocalDateTime getTo() {
+            return to;
+        }
+    }
+
+    private static final class Timeline {
+        private final Meeting[] meetings;
+        private final Duration longest;
+
+        /**
+         * The meetings must already be sorted by start.
+         */
+        private Timeline(Meeting[] meetings) {
+            this.meetings = meetings;
+
+            Duration longestMeeting = Duration.ZERO;
+            for (Meeting meeting : meetings) {
+                Duration length = Duration.between(meeting.getDateStart(), ResourceBuckets.activeUntil(meeting));
+                if (length.compareTo(longestMeeting) > 0)
+                    longestMeeting = length;
+            }
+            this.longest = longestMeeting;
+        }
+
+        /**
+         * The bucket is sorted already, so it is merged into the timeline in a single pass.
+         */
+        private static Timeline with(Timeline timeline, ResourceBuckets.Bucket bucket) {
+            Meeting[] existing = (timeline == null) ? new Meeting[0] : timeline.meetings;
+            Meeting[] meetings = new Meeting[existing.length + bucket.size()];
+            int i = 0, j = 0;
+            for (int k = 0; k < meetings.length; k++) {
+                if (j == bucket.size() || (i < existing.length && !existing[i].getDateStart().isAfter(bucket.getMeeting(j).getDateStart())))
+                    meetings[k] = existing[i++];
+                else
+                    meetings[k] = bucket.getMeeting(j++);
+            }
+            return new Timeline(meetings);
+        }
+
+        private static Timeline withAll(Timeline timeline, List<Meeting> added) {
+            List<Meeting> meetings = new ArrayList<>(added);
+            if (timeline != null)
+                meetings.addAll(Arrays.asList(timeline.meetings));
+            meetings.sort(Comparator.comparing(Meeting::getDateStart));
+            return new Timeline(meetings.toArray(new Meeting[0]));
+        }
+
+        /**
+         * Null once the last meeting is gone, which drops the resource from the map.
+         */
+        private Timeline without(ResourceBuckets.Bucket bucket) {
+            Set<Meeting> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (int i = 0; i < bucket.size(); i++) {
+                removed.add(bucket.getMeeting(i));
+            }
+
+            List<Meeting> meetings = new ArrayList<>(this.meetings.length);
+            for (Meeting meeting : this.meetings) {
+                if (!removed.contains(meeting))
+                    meetings.add(meeting);
+            }
+            return meetings.isEmpty() ? null : new Timeline(meetings.toArray(new Meeting[0]));
+        }
+
+        /**
+         * Adds the meetings running within the range, clipped to it.
+         */
+        private void collect(LocalDateTime from, LocalDateTime to, Meeting excluded, List<Interval> busy) {
+            LocalDateTime earliestStart = from.minus(longest);
+            int low = 0, high = meetings.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (meetings[middle].getDateStart().isBefore(earliestStart))
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+
+            for (int i = low; i < meetings.length && !meetings[i].getDateStart().isAfter(to); i++) {
+                LocalDateTime end = ResourceBuckets.activeUntil(meetings[i]);
+                if (end.isBefore(from) || meetings[i] == excluded)
+                    continue;
+                LocalDateTime start = meetings[i].getDateStart();
+                busy.add(new Interval(start.isBefore(from) ? from : start, end.isAfter(to) ? to : end));
+            }
+        }
+    }
+
+}
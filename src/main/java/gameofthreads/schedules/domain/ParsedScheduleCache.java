@@ -0,0 +1,137 @@
+package gameofthreads.schedules.domain;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parsed schedules keyed by the SHA-256 of the uploaded workbook, so the same file is read by POI only once while
+ * it stays cached. Least recently used schedules are evicted once the cached meetings exceed the limit.
+ * Cached schedules are never handed out, every lookup gets its own copy under the name it was uploaded with.
+ */
+@Component
+public class ParsedScheduleCache {
+    private final static Logger LOGGER = LoggerFactory.getLogger(ParsedScheduleCache.class);
+
+    private final Map<ByteBuffer, CachedSchedule> schedules = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxMeetings;
+    private final CollisionPool collisionPool;
+    private int cachedMeetings;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ParsedScheduleCache(@Value("${app.uploads.parse-cache.max-meetings}") int maxMeetings, CollisionPool collisionPool) {
+        this.maxMeetings = maxMeetings;
+        this.collisionPool = collisionPool;
+    }
+
+    public Optional<Schedule> parse(String fileName, Path file, UploadFormat format, ParserMode mode) throws IOException {
+        if (maxMeetings <= 0)
+            return new Parser(fileName, file, format, mode, collisionPool.getPool()).parse();
+
+        ByteBuffer digest = digest(file, format);
+        CachedSchedule cached;
+        synchronized (this) {
+            cached = schedules.get(digest);
+        }
+        if (cached != null) {
+            LOGGER.debug("Parsed schedule cache hit for " + fileName + ", hits " + hits.incrementAndGet() + ", misses " + misses.get());
+            return Optional.of(cached.copy(fileName));
+        }
+        LOGGER.debug("Parsed schedule cache miss for " + fileName + ", hits " + hits.get() + ", misses " + misses.incrementAndGet());
+
+        Optional<Schedule> parsed = new Parser(fileName, file, format, mode, collisionPool.getPool()).parse();
+        if (parsed.isPresent()) {
+            CachedSchedule parsedSchedule = new CachedSchedule(parsed.get());
+            put(digest, parsedSchedule);
+            return Optional.of(parsedSchedule.copy(fileName));
+        }
+        return parsed;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private synchronized void put(ByteBuffer digest, CachedSchedule parsedSchedule) {
+        if (parsedSchedule.meetingCount > maxMeetings)
+            return;
+
+        CachedSchedule replaced = schedules.put(digest, parsedSchedule);
+        if (replaced != null)
+            cachedMeetings -= replaced.meetingCount;
+        cachedMeetings += parsedSchedule.meetingCount;
+
+        Iterator<CachedSchedule> eldest = schedules.values().iterator();
+        while (cachedMeetings > maxMeetings) {
+            cachedMeetings -= eldest.next().meetingCount;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * The same bytes read as another format give another schedule, so the format is hashed with them.
+     */
+    private static ByteBuffer digest(Path file, UploadFormat format) throws IOException {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        messageDigest.update(format.name().getBytes(StandardCharsets.US_ASCII));
+
+        try (InputStream input = new DigestInputStream(Files.newInputStream(file), messageDigest)) {
+            input.transferTo(OutputStream.nullOutputStream());
+        }
+        return ByteBuffer.wrap(messageDigest.digest());
+    }
+
+    private static class CachedSchedule {
+        private final Schedule schedule;
+        private final int meetingCount;
+
+        private CachedSchedule(Schedule schedule) {
+            this.schedule = schedule;
+            this.meetingCount = schedule.getConferences().stream()
+                    .mapToInt(conference -> conference.getMeetings().size())
+                    .sum();
+        }
+
+        /**
+         * Like a parsed schedule, the copy has no public link until it is stored.
+         */
+        private Schedule copy(String fileName) {
+            Schedule copy = new Schedule(fileName);
+            for (Conference conference : schedule.getConferences()) {
+                Conference copiedConference = new Conference(copy);
+                for (Meeting meeting : conference.getMeetings()) {
+                    copiedConference.getMeetings().add(new Meeting(copiedConference, meeting));
+                }
+                copy.getConferences().add(copiedConference);
+            }
+            return copy;
+        }
+    }
+}
@@ -1,45 +1,83 @@
 package gameofthreads.schedules.domain;
 
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 
 @SuppressWarnings("all")
 public class Parser {
+    private final static Logger LOGGER = LoggerFactory.getLogger(Parser.class);
+
     private final String filePath;
     private final byte[] data;
-
-    private Conference conference;
-    private double conferenceNumber;
-    private LocalDateTime dateStart;
-    private LocalDateTime dateEnd;
-    private String times;
-    private String subject;
-    private String group;
-    private String lecturer;
-    private String type;
-    private double lengthInHours;
-    private String format;
-    private String room;
+    private final Path file;
+    private final UploadFormat format;
+    private final ParserMode mode;
+    private final ForkJoinPool pool;
+    private int rows;
 
     public Parser(String filePath, byte[] data) {
+        this(filePath, data, ParserMode.WORKBOOK);
+    }
+
+    public Parser(String filePath, byte[] data, ParserMode mode) {
         this.filePath = filePath;
         this.data = data;
-        this.conferenceNumber = -1;
+        this.file = null;
+        this.format = UploadFormat.XLSX;
+        this.mode = mode;
+        this.pool = null;
+    }
+
+    /**
+     * Reads the workbook straight from the file, only the parts being parsed are unpacked into memory.
+     */
+    public Parser(String filePath, Path file, ParserMode mode) {
+        this(filePath, file, UploadFormat.XLSX, mode, null);
     }
 
-    private LocalDateTime convertToLocalDateTimeViaInstant(Date dateToConvert) {
+    /**
+     * Sheets of the workbook are read in parallel on the pool, sequentially without one.
+     * Text formats have a single sheet, read straight from the file.
+     */
+    public Parser(String filePath, Path file, UploadFormat format, ParserMode mode, ForkJoinPool pool) {
+        this.filePath = filePath;
+        this.data = null;
+        this.file = file;
+        this.format = format;
+        this.mode = mode;
+        this.pool = pool;
+    }
+
+    private static LocalDateTime convertToLocalDateTimeViaInstant(Date dateToConvert) {
         if (dateToConvert == null)
             return null;
 
@@ -48,83 +86,273 @@ public class Parser {
                 .toLocalDateTime();
     }
 
+    /**
+     * Every sheet of the workbook is read into conferences of the same schedule, numbered on their own. A sheet
+     * whose rows cannot be read keeps the conferences read before the failing row, the other sheets are not affected.
+     * Sheets that fail before their first conference, like legends or notes, add nothing.
+     */
     public Optional<Schedule> parse() throws FileNotFoundException {
         Schedule schedule = new Schedule(filePath);
-        int i = 1;
+        OPCPackage workbook = null;
+        long started = System.nanoTime();
         try {
-            Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(data));
-            Sheet firstSheet = workbook.getSheetAt(0);
-            boolean firstRow = true;
-
-            for (Row nextRow : firstSheet) {
-                if (firstRow) {
-                    firstRow = false;
-                    continue;
-                }
-                Iterator<Cell> cellIterator = nextRow.cellIterator();
+            List<SheetSource> sources;
+            if (format == UploadFormat.XLSX) {
+                workbook = openPackage();
+                sources = (mode == ParserMode.STREAMING) ? streamingSheets(workbook) : workbookSheets(workbook);
+            } else {
+                sources = List.of(this::readText);
+            }
+            List<SheetRows> sheets = new ArrayList<>();
+            for (int i = 0; i < sources.size(); i++) {
+                sheets.add(new SheetRows(schedule, format != UploadFormat.NDJSON, format != UploadFormat.XLSX));
+            }
+            readSheets(sources, sheets);
+
+            for (SheetRows sheet : sheets) {
+                schedule.getConferences().addAll(sheet.conferences);
+                rows += sheet.rows;
+            }
+        } catch (RowFormatException e) {
+            throw e;
+        } catch (Exception e) {
+            return Optional.of(schedule);
+        } finally {
+            if (workbook != null)
+                workbook.revert();
+            logThroughput(System.nanoTime() - started);
+        }
+
+        return Optional.of(schedule);
+    }
+
+    private void readSheets(List<SheetSource> sources, List<SheetRows> sheets) {
+        if (pool == null || sources.size() < 2) {
+            for (int i = 0; i < sources.size(); i++) {
+                sheets.get(i).read(sources.get(i));
+            }
+            return;
+        }
+        pool.submit(() -> IntStream.range(0, sources.size()).parallel()
+                .forEach(i -> sheets.get(i).read(sources.get(i)))).join();
+    }
 
+    private void logThroughput(long nanos) {
+        long millis = Math.max(nanos / 1_000_000, 1);
+        LOGGER.debug("Parsed " + rows + " rows of " + filePath + " in " + millis + " ms, " + (rows * 1000L / millis) + " rows/s");
+    }
+
+    private OPCPackage openPackage() throws IOException, InvalidFormatException {
+        return (file != null) ?
+                OPCPackage.open(file.toFile(), PackageAccess.READ) :
+                OPCPackage.open(new ByteArrayInputStream(data));
+    }
+
+    private void readText(Consumer<Iterator<SheetCell>> rowConsumer) throws IOException {
+        InputStream input = (file != null) ? Files.newInputStream(file) : new ByteArrayInputStream(data);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            if (format == UploadFormat.CSV)
+                TextRowReader.readCsv(reader, rowConsumer);
+            else
+                TextRowReader.readNdjson(reader, rowConsumer);
+        }
+    }
+
+    private static List<SheetSource> streamingSheets(OPCPackage workbookPackage) throws Exception {
+        StreamingSheetReader reader = new StreamingSheetReader(workbookPackage);
+        List<SheetSource> sources = new ArrayList<>();
+        for (InputStream sheet : reader.openSheets()) {
+            sources.add(rowConsumer -> reader.readSheet(sheet, rowConsumer));
+        }
+        return sources;
+    }
+
+    private static List<SheetSource> workbookSheets(OPCPackage workbookPackage) throws IOException {
+        Workbook workbook = new XSSFWorkbook(workbookPackage);
+        List<SheetSource> sources = new ArrayList<>();
+        for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
+            Sheet sheet = workbook.getSheetAt(i);
+            sources.add(rowConsumer -> readSheet(sheet, rowConsumer));
+        }
+        return sources;
+    }
+
+    private static void readSheet(Sheet sheet, Consumer<Iterator<SheetCell>> rowConsumer) {
+        for (Row nextRow : sheet) {
+            Iterator<Cell> cells = nextRow.cellIterator();
+            rowConsumer.accept(new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return cells.hasNext();
+                }
 
-                double lastConference = conferenceNumber;
-                double tmpConference = cellIterator.next().getNumericCellValue();
-                conferenceNumber = tmpConference == 0 ? conferenceNumber : tmpConference;
-                if (lastConference != conferenceNumber) {
-                    if (lastConference != -1) {
-                        schedule.getConferences().add(conference);
-                    }
-                    conference = new Conference(schedule);
+                @Override
+                public SheetCell next() {
+                    return new WorkbookCell(cells.next());
                 }
+            });
+        }
+    }
+
+    private interface SheetSource {
+        void read(Consumer<Iterator<SheetCell>> rowConsumer) throws Exception;
+    }
+
+    /**
+     * Row by row state of one sheet. Conferences are collected here and added to the schedule once all sheets are read.
+     */
+    private static class SheetRows {
+        private final Schedule schedule;
+        private final List<Conference> conferences = new ArrayList<>();
+        private final RowDecoder decoder = new RowDecoder();
+        private int rows;
 
-                dateStart = Optional.ofNullable
-                        (convertToLocalDateTimeViaInstant(cellIterator.next().getDateCellValue())).orElse(dateStart);
-                String tmpTimes = cellIterator.next().getStringCellValue();
-                times = tmpTimes.equals("") ? "0.00-23.59" : tmpTimes;
-
-                subject = cellIterator.next().getStringCellValue();
-                group = cellIterator.next().getStringCellValue();
-                lecturer = cellIterator.next().getStringCellValue();
-                type = cellIterator.next().getStringCellValue();
-                lengthInHours = cellIterator.next().getNumericCellValue();
-                format = cellIterator.next().getStringCellValue();
-                room = cellIterator.next().toString();
-
-                LocalDateTime meetingStartTime = dateStart
-                        .withHour(Integer.parseInt(times.split("-")[0].split("\\.")[0]))
-                        .withMinute(Integer.parseInt(times.split("-")[0].split("\\.")[1]));
-
-                LocalDateTime meetingEndTime = dateStart
-                        .withHour(Integer.parseInt(times.split("-")[1].split("\\.")[0]))
-                        .withMinute(Integer.parseInt(times.split("-")[1].split("\\.")[1]));
-
-                String[] lecturerSplited = lecturer.split(" ");
-                if (lecturerSplited.length < 2)
-                    lecturerSplited = new String[]{"", ""};
-
-                Meeting newMeeting = new Meeting.MeetingBuilder()
-                        .conference(conference)
-                        .dateStart(meetingStartTime)
-                        .dateEnd(meetingEndTime)
-                        .subject(subject)
-                        .group(group)
-                        .lecturerName(lecturerSplited[0])
-                        .lecturerSurname(lecturerSplited[1])
-                        .type(type)
-                        .lengthInHours((int) lengthInHours)
-                        .format(format)
-                        .room(room)
-                        .build();
-                if (!newMeeting.getSubject().equals(""))
-                    conference.getMeetings().add(newMeeting);
+        private Conference conference;
+        private double conferenceNumber = -1;
+        private LocalDateTime dateStart;
+        private String times;
+        private String subject;
+        private String group;
+        private String lecturer;
+        private String type;
+        private double lengthInHours;
+        private String format;
+        private String room;
+        private boolean firstRow;
+        private final boolean text;
+        private int record;
+        private boolean inRecord;
+
+        /**
+         * The header row is skipped when the rows have one. Workbooks end with the rows Excel leaves after the table,
+         * the conference being read is added when they fail to parse. Text files end right after the last row,
+         * so the conference is added at their end instead, and a row that fails rejects the whole file.
+         */
+        private SheetRows(Schedule schedule, boolean header, boolean text) {
+            this.schedule = schedule;
+            this.firstRow = header;
+            this.text = text;
+        }
+
+        private void read(SheetSource source) {
+            if (text) {
+                readText(source);
+                return;
             }
+            try {
+                source.read(this::readRow);
+            } catch (IllegalStateException | NoSuchElementException ignored) {
+                if (conference != null)
+                    conferences.add(conference);
+            } catch (Exception ignored) {
+            }
+        }
 
-        } catch (IllegalStateException ignored) {
-            schedule.getConferences().add(conference);
-        } catch (NoSuchElementException ignored) {
-            schedule.getConferences().add(conference);
-            return Optional.of(schedule);
-        } catch (Exception e) {
-            return Optional.of(schedule);
+        /**
+         * Rows are numbered from the first line of the file, header included. A file that cannot be read at all
+         * is handled like an unreadable workbook.
+         */
+        private void readText(SheetSource source) {
+            try {
+                source.read(cellIterator -> {
+                    record++;
+                    inRecord = true;
+                    readRow(cellIterator);
+                    inRecord = false;
+                });
+            } catch (RuntimeException e) {
+                throw new RowFormatException(schedule.getFileName(), inRecord ? record : record + 1, String.valueOf(e.getMessage()));
+            } catch (Exception ignored) {
+                return;
+            }
+            if (conference != null)
+                conferences.add(conference);
         }
 
-        return Optional.of(schedule);
+        private void readRow(Iterator<SheetCell> cellIterator) {
+            if (firstRow) {
+                firstRow = false;
+                return;
+            }
+            rows++;
+
+            double lastConference = conferenceNumber;
+            double tmpConference = cellIterator.next().getNumericCellValue();
+            conferenceNumber = tmpConference == 0 ? conferenceNumber : tmpConference;
+            if (lastConference != conferenceNumber) {
+                if (lastConference != -1) {
+                    conferences.add(conference);
+                }
+                conference = new Conference(schedule);
+            }
+
+            dateStart = Optional.ofNullable
+                    (convertToLocalDateTimeViaInstant(cellIterator.next().getDateCellValue())).orElse(dateStart);
+            String tmpTimes = cellIterator.next().getStringCellValue();
+            times = tmpTimes.equals("") ? "0.00-23.59" : tmpTimes;
+
+            subject = decoder.intern(cellIterator.next().getStringCellValue());
+            group = decoder.intern(cellIterator.next().getStringCellValue());
+            lecturer = cellIterator.next().getStringCellValue();
+            type = cellIterator.next().getStringCellValue();
+            lengthInHours = cellIterator.next().getNumericCellValue();
+            format = cellIterator.next().getStringCellValue();
+            room = decoder.intern(cellIterator.next().toString());
+
+            int[] timeRange = decoder.timeRange(times);
+            LocalDateTime meetingStartTime = dateStart
+                    .withHour(timeRange[0])
+                    .withMinute(timeRange[1]);
+
+            LocalDateTime meetingEndTime = dateStart
+                    .withHour(timeRange[2])
+                    .withMinute(timeRange[3]);
+
+            String[] lecturerSplited = decoder.lecturer(lecturer);
+
+            Meeting newMeeting = new Meeting.MeetingBuilder()
+                    .conference(conference)
+                    .dateStart(meetingStartTime)
+                    .dateEnd(meetingEndTime)
+                    .subject(subject)
+                    .group(group)
+                    .lecturerName(lecturerSplited[0])
+                    .lecturerSurname(lecturerSplited[1])
+                    .type(type)
+                    .lengthInHours((int) lengthInHours)
+                    .format(format)
+                    .room(room)
+                    .build();
+            if (!newMeeting.getSubject().equals(""))
+                conference.getMeetings().add(newMeeting);
+        }
+    }
+
+    private static class WorkbookCell implements SheetCell {
+        private final Cell cell;
+
+        private WorkbookCell(Cell cell) {
+            this.cell = cell;
+        }
+
+        @Override
+        public double getNumericCellValue() {
+            return cell.getNumericCellValue();
+        }
+
+        @Override
+        public Date getDateCellValue() {
+            return cell.getDateCellValue();
+        }
+
+        @Override
+        public String getStringCellValue() {
+            return cell.getStringCellValue();
+        }
+
+        @Override
+        public String toString() {
+            return cell.toString();
+        }
     }
 }
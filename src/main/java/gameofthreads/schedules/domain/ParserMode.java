@@ -0,0 +1,12 @@
+package gameofthreads.schedules.domain;
+
+public enum ParserMode {
+    /**
+     * The whole workbook is loaded into memory with XSSFWorkbook before its sheets are read.
+     */
+    WORKBOOK,
+    /**
+     * Sheets are read row by row with SAX, keeping only the shared strings and styles in memory.
+     */
+    STREAMING
+}
@@ -0,0 +1,98 @@
+package gameofthreads.schedules.domain;
+
+import gameofthreads.schedules.entity.ExcelEntity;
+import gameofthreads.schedules.util.UploadFiles;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Schedules that passed validation, kept under a single-use token until they are committed or expire.
+ * Uploaded files of expired schedules are deleted with them.
+ */
+@Component
+public class PendingUploads {
+    private final Map<String, PendingUpload> uploads = new ConcurrentHashMap<>();
+    private final Duration timeToLive;
+
+    public PendingUploads(@Value("${app.uploads.token-ttl}") Duration timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    public PendingUpload put(List<Schedule> schedules, long indexVersion) {
+        PendingUpload upload = new PendingUpload(UUID.randomUUID().toString(), schedules, indexVersion,
+                LocalDateTime.now().plus(timeToLive));
+        uploads.put(upload.token, upload);
+        return upload;
+    }
+
+    public Optional<PendingUpload> take(String token) {
+        PendingUpload upload = uploads.remove(token);
+        if (upload == null)
+            return Optional.empty();
+        if (upload.isExpired()) {
+            UploadFiles.delete(upload.getExcelEntities());
+            return Optional.empty();
+        }
+        return Optional.of(upload);
+    }
+
+    @Scheduled(initialDelay = 1000 * 60, fixedDelay = 1000 * 60)
+    public void evictExpired() {
+        for (PendingUpload upload : uploads.values()) {
+            if (upload.isExpired() && uploads.remove(upload.token, upload))
+                UploadFiles.delete(upload.getExcelEntities());
+        }
+    }
+
+    public static class PendingUpload {
+        private final String token;
+        private final List<Schedule> schedules;
+        private final long indexVersion;
+        private final LocalDateTime expiresAt;
+
+        private PendingUpload(String token, List<Schedule> schedules, long indexVersion, LocalDateTime expiresAt) {
+            this.token = token;
+            this.schedules = schedules;
+            this.indexVersion = indexVersion;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired() {
+            return LocalDateTime.now().isAfter(expiresAt);
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public List<Schedule> getSchedules() {
+            return schedules;
+        }
+
+        public List<ExcelEntity> getExcelEntities() {
+            return schedules.stream().map(Schedule::getExcelEntity).collect(Collectors.toList());
+        }
+
+        /**
+         * Version of the occupancy index the schedules were checked against.
+         */
+        public long getIndexVersion() {
+            return indexVersion;
+        }
+
+        public LocalDateTime getExpiresAt() {
+            return expiresAt;
+        }
+    }
+
+}
@@ -0,0 +1,386 @@
+package gameofthreads.schedules.domain;
+
+import gameofthreads.schedules.entity.MeetingFormat;
+import gameofthreads.schedules.entity.MeetingType;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Places meetings into free slots of a window of days by iterative repair. Meetings are taken most constrained
+ * first and put where their lecturer and group are least loaded that day. A meeting with no free slot left
+ * takes the slot blocking the fewest placed meetings and sends those back to the queue; recently placed ones
+ * are displaced only as a last resort, so the search does not cycle.
+ * <p>
+ * Occupancy is kept in {@link OccupancyCalendar} slots, on the same resources {@link ResourceKey#of(Meeting)}
+ * gives and with intervals closed as in {@link Meeting#compareMeeting(Meeting)}. Slots are coarser than
+ * meetings, so a placement judged free never collides with any meeting.
+ */
+public class PlacementSolver {
+    private static final int TABU_TENURE = 20;
+    private static final int MAX_DISPLACEMENTS = 50;
+
+    private final OccupancyCalendar stored;
+    private final Window window;
+    private final long deadline;
+    private final long maxIterations;
+    private final Random random = new Random(0);
+
+    private final Map<ResourceKey, int[][]> owners = new HashMap<>();
+    private final Map<ResourceKey, BitSet[]> storedSlots = new HashMap<>();
+    private final Map<ResourceKey, int[]> dayLoads = new HashMap<>();
+
+    private List<Task> tasks;
+    private Placement[] placements;
+    private long[] placedAt;
+    private int[] displacements;
+
+    public PlacementSolver(OccupancyCalendar stored, Window window, Duration timeLimit, long maxIterations) {
+        this.stored = stored;
+        this.window = window;
+        this.deadline = System.nanoTime() + timeLimit.toNanos();
+        this.maxIterations = maxIterations;
+    }
+
+    public Result solve(List<Task> placedTasks) {
+        tasks = placedTasks;
+        placements = new Placement[tasks.size()];
+        placedAt = new long[tasks.size()];
+        displacements = new int[tasks.size()];
+
+        Map<ResourceKey, Integer> demand = new HashMap<>();
+        for (Task task : tasks) {
+            demand.merge(task.lecturer, task.duration, Integer::sum);
+            demand.merge(task.group, task.duration, Integer::sum);
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int task = 0; task < tasks.size(); task++) {
+            order.add(task);
+        }
+        order.sort(Comparator.comparingInt((Integer task) -> tasks.get(task).rooms.size())
+                .thenComparing(task -> -tasks.get(task).duration)
+                .thenComparing(task -> -(demand.get(tasks.get(task).lecturer) + demand.get(tasks.get(task).group))));
+
+        Deque<Integer> queue = new ArrayDeque<>(order);
+        long iterations = 0;
+        while (!queue.isEmpty() && iterations < maxIterations && System.nanoTime() < deadline) {
+            int task = queue.poll();
+            iterations++;
+            if (!fitsWindow(tasks.get(task)))
+                continue;
+
+            Placement placement = findFree(task);
+            if (placement == null) {
+                if (displacements[task] >= MAX_DISPLACEMENTS)
+                    continue;
+                placement = findLeastBlocked(task, iterations);
+                if (placement == null)
+                    continue;
+                for (int blocker : blockers(tasks.get(task), placement)) {
+                    unplace(blocker);
+                    queue.addLast(blocker);
+                }
+                displacements[task]++;
+            }
+            place(task, placement, iterations);
+        }
+
+        List<Meeting> placed = new ArrayList<>();
+        List<Integer> unplaced = new ArrayList<>();
+        for (int task = 0; task < tasks.size(); task++) {
+            if (placements[task] == null)
+                unplaced.add(task);
+            else
+                placed.add(tasks.get(task).toMeeting(window, placements[task]));
+        }
+        return new Result(placed, unplaced, iterations, !queue.isEmpty());
+    }
+
+    private boolean fitsWindow(Task task) {
+        return (task.format == MeetingFormat.HOME || !task.rooms.isEmpty())
+                && window.firstStart() + task.duration <= window.lastEnd();
+    }
+
+    /**
+     * Free slot where the lecturer and group are least loaded that day, earliest first.
+     */
+    private Placement findFree(int taskIndex) {
+        Task task = tasks.get(taskIndex);
+        Placement best = null;
+        int bestLoad = Integer.MAX_VALUE;
+        for (int day = 0; day < window.days; day++) {
+            int load = dayLoad(task.lecturer, day) + dayLoad(task.group, day);
+            if (load >= bestLoad)
+                continue;
+            Placement placement = findFree(task, day);
+            if (placement != null) {
+                best = placement;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    private Placement findFree(Task task, int day) {
+        for (int start = window.firstStart(); start + task.duration <= window.lastEnd(); start += window.stepMinutes) {
+            if (!isFree(task.lecturer, day, start, task.duration) || !isFree(task.group, day, start, task.duration))
+                continue;
+            if (task.roomKeys.isEmpty())
+                return new Placement(day, start, -1);
+            for (int room = 0; room < task.roomKeys.size(); room++) {
+                if (isFree(task.roomKeys.get(room), day, start, task.duration))
+                    return new Placement(day, start, room);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Slot, not taken by a stored meeting, whose placed meetings are the cheapest to move. Ties are broken at random.
+     */
+    private Placement findLeastBlocked(int taskIndex, long iteration) {
+        Task task = tasks.get(taskIndex);
+        Placement best = null;
+        long bestCost = Long.MAX_VALUE;
+        int ties = 0;
+        for (int day = 0; day < window.days; day++) {
+            for (int start = window.firstStart(); start + task.duration <= window.lastEnd(); start += window.stepMinutes) {
+                int rooms = Math.max(task.roomKeys.size(), 1);
+                for (int room = 0; room < rooms; room++) {
+                    Placement placement = new Placement(day, start, task.roomKeys.isEmpty() ? -1 : room);
+                    Set<Integer> blockers = blockers(task, placement);
+                    if (blockers == null)
+                        continue;
+
+                    long cost = 0;
+                    for (int blocker : blockers) {
+                        cost += (iteration - placedAt[blocker] < TABU_TENURE) ? tasks.size() : 1;
+                    }
+                    if (cost < bestCost) {
+                        best = placement;
+                        bestCost = cost;
+                        ties = 1;
+                    } else if (cost == bestCost && random.nextInt(++ties) == 0) {
+                        best = placement;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Placed meetings occupying any resource of the placement, null if a stored meeting does.
+     */
+    private Set<Integer> blockers(Task task, Placement placement) {
+        Set<Integer> blockers = new HashSet<>();
+        for (ResourceKey key : task.keysOf(placement)) {
+            if (isStored(key, placement.day, placement.start, task.duration))
+                return null;
+            int[] slots = ownerSlots(key, placement.day);
+            for (int slot = firstSlot(placement.start); slot <= lastSlot(placement.start, task.duration); slot++) {
+                if (slots[slot] != 0)
+                    blockers.add(slots[slot] - 1);
+            }
+        }
+        return blockers;
+    }
+
+    private boolean isFree(ResourceKey key, int day, int start, int duration) {
+        if (isStored(key, day, start, duration))
+            return false;
+        int[] slots = ownerSlots(key, day);
+        for (int slot = firstSlot(start); slot <= lastSlot(start, duration); slot++) {
+            if (slots[slot] != 0)
+                return false;
+        }
+        return true;
+    }
+
+    private boolean isStored(ResourceKey key, int day, int start, int duration) {
+        BitSet occupied = storedSlots.computeIfAbsent(key, k -> new BitSet[window.days])[day];
+        if (occupied == null) {
+            occupied = (stored == null) ? new BitSet() : stored.getOccupiedSlots(key, window.firstDay.plusDays(day));
+            storedSlots.get(key)[day] = occupied;
+        }
+        int next = occupied.nextSetBit(firstSlot(start));
+        return next >= 0 && next <= lastSlot(start, duration);
+    }
+
+    private void place(int taskIndex, Placement placement, long iteration) {
+        Task task = tasks.get(taskIndex);
+        for (ResourceKey key : task.keysOf(placement)) {
+            Arrays.fill(ownerSlots(key, placement.day), firstSlot(placement.start), lastSlot(placement.start, task.duration) + 1, taskIndex + 1);
+        }
+        dayLoads.computeIfAbsent(task.lecturer, key -> new int[window.days])[placement.day] += task.duration;
+        dayLoads.computeIfAbsent(task.group, key -> new int[window.days])[placement.day] += task.duration;
+        placements[taskIndex] = placement;
+        placedAt[taskIndex] = iteration;
+    }
+
+    private void unplace(int taskIndex) {
+        Task task = tasks.get(taskIndex);
+        Placement placement = placements[taskIndex];
+        for (ResourceKey key : task.keysOf(placement)) {
+            Arrays.fill(ownerSlots(key, placement.day), firstSlot(placement.start), lastSlot(placement.start, task.duration) + 1, 0);
+        }
+        dayLoads.get(task.lecturer)[placement.day] -= task.duration;
+        dayLoads.get(task.group)[placement.day] -= task.duration;
+        placements[taskIndex] = null;
+    }
+
+    private int[] ownerSlots(ResourceKey key, int day) {
+        return owners.computeIfAbsent(key, k -> new int[window.days][OccupancyCalendar.SLOTS_PER_DAY])[day];
+    }
+
+    private int dayLoad(ResourceKey key, int day) {
+        int[] loads = dayLoads.get(key);
+        return (loads == null) ? 0 : loads[day];
+    }
+
+    private static int firstSlot(int start) {
+        return start / OccupancyCalendar.SLOT_MINUTES;
+    }
+
+    /**
+     * The slot the end falls into is occupied too, a meeting is still running at the instant it ends.
+     */
+    private static int lastSlot(int start, int duration) {
+        return (start + duration) / OccupancyCalendar.SLOT_MINUTES;
+    }
+
+    /**
+     * Days to place meetings in and the hours of each day they may start and end within.
+     */
+    public static final class Window {
+        private final LocalDate firstDay;
+        private final int days;
+        private final LocalTime dayStart;
+        private final LocalTime dayEnd;
+        private final int stepMinutes;
+
+        public Window(LocalDate firstDay, int days, LocalTime dayStart, LocalTime dayEnd, int stepMinutes) {
+            this.firstDay = firstDay;
+            this.days = days;
+            this.dayStart = dayStart;
+            this.dayEnd = dayEnd;
+            this.stepMinutes = stepMinutes;
+        }
+
+        private int firstStart() {
+            return dayStart.getHour() * 60 + dayStart.getMinute();
+        }
+
+        private int lastEnd() {
+            return dayEnd.getHour() * 60 + dayEnd.getMinute();
+        }
+    }
+
+    private static final class Placement {
+        private final int day;
+        private final int start;
+        private final int room;
+
+        private Placement(int day, int start, int room) {
+            this.day = day;
+            this.start = start;
+            this.room = room;
+        }
+    }
+
+    public static final class Task {
+        private final String subject;
+        private final String groupName;
+        private final String lecturerName;
+        private final String lecturerSurname;
+        private final MeetingType type;
+        private final Integer lengthInHours;
+        private final MeetingFormat format;
+        private final int duration;
+        private final List<String> rooms;
+        private final ResourceKey lecturer;
+        private final ResourceKey group;
+        private final List<ResourceKey> roomKeys = new ArrayList<>();
+
+        /**
+         * Remote meetings occupy no room, any of the rooms is only recorded with them.
+         */
+        public Task(String subject, String groupName, String lecturerName, String lecturerSurname, MeetingType type,
+                    Integer lengthInHours, MeetingFormat format, int duration, List<String> rooms) {
+            this.subject = subject;
+            this.groupName = groupName;
+            this.lecturerName = lecturerName;
+            this.lecturerSurname = lecturerSurname;
+            this.type = type;
+            this.lengthInHours = lengthInHours;
+            this.format = format;
+            this.duration = duration;
+            this.rooms = rooms;
+            this.lecturer = ResourceKey.lecturer(lecturerName, lecturerSurname);
+            this.group = ResourceKey.group(groupName);
+            if (format != MeetingFormat.HOME)
+                rooms.forEach(room -> roomKeys.add(ResourceKey.room(room)));
+        }
+
+        private List<ResourceKey> keysOf(Placement placement) {
+            return (placement.room < 0) ?
+                    List.of(lecturer, group) :
+                    List.of(lecturer, group, roomKeys.get(placement.room));
+        }
+
+        private Meeting toMeeting(Window window, Placement placement) {
+            String room = (placement.room >= 0) ? rooms.get(placement.room) : (rooms.isEmpty() ? "" : rooms.get(0));
+            return new Meeting.MeetingBuilder()
+                    .dateStart(window.firstDay.plusDays(placement.day).atStartOfDay().plusMinutes(placement.start))
+                    .dateEnd(window.firstDay.plusDays(placement.day).atStartOfDay().plusMinutes(placement.start + duration))
+                    .subject(subject)
+                    .group(groupName)
+                    .lecturerName(lecturerName)
+                    .lecturerSurname(lecturerSurname)
+                    .type(type.type)
+                    .lengthInHours(lengthInHours)
+                    .format(format.format)
+                    .room(room)
+                    .build();
+        }
+    }
+
+    public static final class Result {
+        private final List<Meeting> placed;
+        private final List<Integer> unplaced;
+        private final long iterations;
+        private final boolean stopped;
+
+        private Result(List<Meeting> placed, List<Integer> unplaced, long iterations, boolean stopped) {
+            this.placed = placed;
+            this.unplaced = unplaced;
+            this.iterations = iterations;
+            this.stopped = stopped;
+        }
+
+        public List<Meeting> getPlaced() {
+            return placed;
+        }
+
+        /**
+         * Indexes of the tasks left without a slot.
+         */
+        public List<Integer> getUnplaced() {
+            return unplaced;
+        }
+
+        public long getIterations() {
+            return iterations;
+        }
+
+        /**
+         * True if the time or iteration limit ended the search before every meeting was settled.
+         */
+        public boolean isStopped() {
+            return stopped;
+        }
+    }
+
+}
@@ -0,0 +1,141 @@
+package gameofthreads.schedules.domain;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Meetings of one schedule partitioned by the room, lecturer and group they occupy.
+ * Each bucket is sorted by start time, so only meetings sharing a resource and a time window
+ * ever get compared. Remote meetings never enter room buckets.
+ */
+public class ResourceBuckets {
+    private final Map<ResourceKey, Bucket> buckets = new HashMap<>();
+    private final int size;
+
+    public ResourceBuckets(Schedule schedule) {
+        List<Meeting> meetings = new ArrayList<>();
+        Map<ResourceKey, List<Integer>> grouped = new HashMap<>();
+
+        for (Conference conference : schedule.getConferences()) {
+            if (conference == null)
+                continue;
+            for (Meeting meeting : conference.getMeetings()) {
+                for (ResourceKey key : ResourceKey.of(meeting)) {
+                    grouped.computeIfAbsent(key, k -> new ArrayList<>()).add(meetings.size());
+                }
+                meetings.add(meeting);
+            }
+        }
+
+        for (Map.Entry<ResourceKey, List<Integer>> entry : grouped.entrySet()) {
+            buckets.put(entry.getKey(), new Bucket(meetings, entry.getValue()));
+        }
+        this.size = meetings.size();
+    }
+
+    /**
+     * Intervals are closed, so a meeting is still running at the instant it ends.
+     * Malformed meetings ending before they start are treated as running at their start.
+     */
+    static LocalDateTime activeUntil(Meeting meeting) {
+        return meeting.getDateEnd().isBefore(meeting.getDateStart()) ? meeting.getDateStart() : meeting.getDateEnd();
+    }
+
+    public Set<ResourceKey> keys() {
+        return buckets.keySet();
+    }
+
+    public Bucket get(ResourceKey key) {
+        return buckets.get(key);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public static class Bucket {
+        private final Meeting[] meetings;
+        private final int[] positions;
+        private final Duration longest;
+
+        private Bucket(List<Meeting> scheduleMeetings, List<Integer> bucketPositions) {
+            bucketPositions.sort(Comparator.comparing(position -> scheduleMeetings.get(position).getDateStart()));
+            this.meetings = new Meeting[bucketPositions.size()];
+            this.positions = new int[bucketPositions.size()];
+
+            Duration longestMeeting = Duration.ZERO;
+            for (int i = 0; i < positions.length; i++) {
+                positions[i] = bucketPositions.get(i);
+                meetings[i] = scheduleMeetings.get(positions[i]);
+                Duration length = Duration.between(meetings[i].getDateStart(), activeUntil(meetings[i]));
+                if (length.compareTo(longestMeeting) > 0)
+                    longestMeeting = length;
+            }
+            this.longest = longestMeeting;
+        }
+
+        public int size() {
+            return meetings.length;
+        }
+
+        /**
+         * Meeting at the given index, ordered by start time.
+         */
+        public Meeting getMeeting(int index) {
+            return meetings[index];
+        }
+
+        /**
+         * Position of the meeting in the schedule, counted in conference and meeting iteration order.
+         */
+        public int getPosition(int index) {
+            return positions[index];
+        }
+
+        public LocalDateTime getFirstStart() {
+            return meetings[0].getDateStart();
+        }
+
+        public LocalDateTime getLastEnd() {
+            LocalDateTime lastEnd = activeUntil(meetings[0]);
+            for (Meeting meeting : meetings) {
+                if (activeUntil(meeting).isAfter(lastEnd))
+                    lastEnd = activeUntil(meeting);
+            }
+            return lastEnd;
+        }
+
+        /**
+         * First index of a meeting that may still be running at the given time.
+         */
+        public int lowerBound(LocalDateTime from) {
+            LocalDateTime earliestStart = from.minus(longest);
+            int low = 0, high = meetings.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (meetings[middle].getDateStart().isBefore(earliestStart))
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+            return low;
+        }
+
+        /**
+         * First index of a meeting starting after the given time.
+         */
+        public int upperBound(LocalDateTime to) {
+            int low = 0, high = meetings.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (meetings[middle].getDateStart().isAfter(to))
+                    high = middle;
+                else
+                    low = middle + 1;
+            }
+            return low;
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+package gameofthreads.schedules.domain;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Integer ids of rooms, groups and lecturers, shared by parsed and stored schedules, so collision checks
+ * compare ints instead of strings. Names are interned along the way: every meeting held in memory points
+ * to a single copy of each distinct name.
+ * Names are held weakly, by the meetings that use them. A name, and its ids, is dropped once no meeting
+ * refers to it any more, so files that are only parsed and checked do not grow the dictionary.
+ */
+public final class ResourceDictionary {
+    private static final Map<String, Name> NAMES = new WeakHashMap<>();
+
+    private static int nextRoomId;
+    private static int nextGroupId;
+    private static int nextLecturerId;
+
+    private ResourceDictionary() {
+    }
+
+    private static final class Name {
+        private final WeakReference<String> text;
+        private int roomId = -1;
+        private int groupId = -1;
+        /**
+         * Ids of the lecturers with this first name, by their interned surname.
+         */
+        private Map<String, Integer> lecturerIds;
+
+        private Name(String text) {
+            this.text = new WeakReference<>(text);
+        }
+    }
+
+    private static Name nameOf(String text) {
+        Name name = NAMES.get(text);
+        if (name == null || name.text.get() == null) {
+            name = new Name(text);
+            NAMES.put(text, name);
+        }
+        return name;
+    }
+
+    public static synchronized String intern(String name) {
+        if (name == null)
+            return null;
+        String interned = nameOf(name).text.get();
+        return (interned != null) ? interned : name;
+    }
+
+    public static synchronized int roomId(String room) {
+        Name name = nameOf(room);
+        if (name.roomId < 0)
+            name.roomId = nextRoomId++;
+        return name.roomId;
+    }
+
+    public static synchronized int groupId(String group) {
+        Name name = nameOf(group);
+        if (name.groupId < 0)
+            name.groupId = nextGroupId++;
+        return name.groupId;
+    }
+
+    public static synchronized int lecturerId(String name, String surname) {
+        Name firstName = nameOf(name);
+        String internedSurname = nameOf(surname).text.get();
+        if (firstName.lecturerIds == null)
+            firstName.lecturerIds = new WeakHashMap<>();
+        return firstName.lecturerIds.computeIfAbsent((internedSurname != null) ? internedSurname : surname, s -> nextLecturerId++);
+    }
+
+}
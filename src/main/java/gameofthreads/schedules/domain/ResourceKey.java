@@ -0,0 +1,74 @@
+package gameofthreads.schedules.domain;
+
+import gameofthreads.schedules.entity.MeetingFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Identifies a resource that can be booked only once at a time: a room, a lecturer or a group.
+ * Remote meetings do not occupy any room.
+ */
+public final class ResourceKey {
+    private final CollisionReason reason;
+    private final int id;
+    /**
+     * Kept only so that the names stay in the {@link ResourceDictionary}, with the same id, as long as the key is in use.
+     */
+    private final String name;
+    private final String surname;
+
+    private ResourceKey(CollisionReason reason, int id, String name, String surname) {
+        this.reason = reason;
+        this.id = id;
+        this.name = name;
+        this.surname = surname;
+    }
+
+    public static List<ResourceKey> of(Meeting meeting) {
+        List<ResourceKey> keys = new ArrayList<>(3);
+        if (meeting.getFormat() != MeetingFormat.HOME)
+            keys.add(new ResourceKey(CollisionReason.ROOM, meeting.getRoomId(), meeting.getRoom(), null));
+        keys.add(new ResourceKey(CollisionReason.LECTURER, meeting.getLecturerId(), meeting.getLecturerName(), meeting.getLecturerSurname()));
+        keys.add(new ResourceKey(CollisionReason.GROUP, meeting.getGroupId(), meeting.getGroup(), null));
+        return keys;
+    }
+
+    public static ResourceKey room(String room) {
+        String interned = ResourceDictionary.intern(room);
+        return new ResourceKey(CollisionReason.ROOM, ResourceDictionary.roomId(interned), interned, null);
+    }
+
+    public static ResourceKey lecturer(String name, String surname) {
+        String internedName = ResourceDictionary.intern(name);
+        String internedSurname = ResourceDictionary.intern(surname);
+        return new ResourceKey(CollisionReason.LECTURER, ResourceDictionary.lecturerId(internedName, internedSurname),
+                internedName, internedSurname);
+    }
+
+    public static ResourceKey group(String group) {
+        String interned = ResourceDictionary.intern(group);
+        return new ResourceKey(CollisionReason.GROUP, ResourceDictionary.groupId(interned), interned, null);
+    }
+
+    public CollisionReason getReason() {
+        return reason;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null || getClass() != obj.getClass())
+            return false;
+        final ResourceKey other = (ResourceKey) obj;
+
+        return reason == other.reason && id == other.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * reason.hashCode() + id;
+    }
+
+}
@@ -0,0 +1,69 @@
+package gameofthreads.schedules.domain;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decodes the text cells of one workbook. A schedule repeats a few dozen subjects, groups, lecturers, rooms
+ * and time ranges over all its rows, so every distinct value is kept once and decoded only the first time it is seen.
+ * Values that cannot be decoded throw the way the split-based decoding did and are not remembered.
+ */
+class RowDecoder {
+    private static final String[] NO_LECTURER = {"", ""};
+
+    private final Map<String, String> values = new HashMap<>();
+    private final Map<String, int[]> timeRanges = new HashMap<>();
+    private final Map<String, String[]> lecturers = new HashMap<>();
+
+    String intern(String value) {
+        String interned = values.putIfAbsent(value, value);
+        return (interned != null) ? interned : value;
+    }
+
+    /**
+     * Start hour, start minute, end hour and end minute of a range like "8.00-9.30".
+     */
+    int[] timeRange(String times) {
+        int[] timeRange = timeRanges.get(times);
+        if (timeRange == null) {
+            int startEnd = times.indexOf('-');
+            int end = times.indexOf('-', startEnd + 1);
+            if (startEnd <= 0 || end == startEnd + 1 || startEnd == times.length() - 1)
+                throw new IllegalArgumentException("Wrong time range " + times);
+
+            timeRange = new int[4];
+            readTime(times, 0, startEnd, timeRange, 0);
+            readTime(times, startEnd + 1, (end < 0) ? times.length() : end, timeRange, 2);
+            timeRanges.put(times, timeRange);
+        }
+        return timeRange;
+    }
+
+    /**
+     * Name and surname are the first two words; both are empty unless some word follows the first space.
+     */
+    String[] lecturer(String lecturer) {
+        String[] names = lecturers.get(lecturer);
+        if (names == null) {
+            int first = lecturer.indexOf(' ');
+            if (first < 0 || lecturer.chars().skip(first).allMatch(character -> character == ' ')) {
+                names = NO_LECTURER;
+            } else {
+                int second = lecturer.indexOf(' ', first + 1);
+                names = new String[]{intern(lecturer.substring(0, first)),
+                        intern(lecturer.substring(first + 1, (second < 0) ? lecturer.length() : second))};
+            }
+            lecturers.put(intern(lecturer), names);
+        }
+        return names;
+    }
+
+    private static void readTime(String times, int from, int to, int[] timeRange, int position) {
+        int dot = times.indexOf('.', from);
+        if (dot <= from || dot >= to - 1)
+            throw new IllegalArgumentException("Wrong time " + times.substring(from, to));
+        int nextDot = times.indexOf('.', dot + 1);
+        timeRange[position] = Integer.parseInt(times, from, dot, 10);
+        timeRange[position + 1] = Integer.parseInt(times, dot + 1, (nextDot < 0 || nextDot > to) ? to : nextDot, 10);
+    }
+}
@@ -0,0 +1,24 @@
+package gameofthreads.schedules.domain;
+
+/**
+ * A row of an uploaded text file that cannot be read. Unlike the rows Excel leaves after a table,
+ * such a row is a mistake in the file, so the whole file is rejected.
+ */
+public class RowFormatException extends RuntimeException {
+    private final String fileName;
+    private final int row;
+
+    public RowFormatException(String fileName, int row, String reason) {
+        super("Row " + row + " of " + fileName + " cannot be read: " + reason);
+        this.fileName = fileName;
+        this.row = row;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public int getRow() {
+        return row;
+    }
+}
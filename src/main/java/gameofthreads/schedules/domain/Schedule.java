@@ -1,35 +1,76 @@
 package gameofthreads.schedules.domain;
 
-import gameofthreads.schedules.dto.response.UploadConflictResponse;
 import gameofthreads.schedules.entity.ExcelEntity;
+import gameofthreads.schedules.entity.MeetingEntity;
+import gameofthreads.schedules.entity.ScheduleEntity;
 import net.bytebuddy.utility.RandomString;
-import org.springframework.data.util.Pair;
 
+import java.util.Collection;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 public class Schedule {
     private final static Set<String> publicLinkSet = new HashSet<>();
 
+    private final Integer id;
     private final String fileName;
-    private final String publicLink;
+    private String publicLink;
     private final Set<Conference> conferences;
     private ExcelEntity excelEntity;
     private final Boolean notifications;
+    private volatile ResourceBuckets resourceBuckets;
 
     public Schedule(String fileName) {
+        this.id = null;
         this.fileName = fileName.split("\\.")[0];
-        this.publicLink = generatePublicLink();
         this.conferences = new HashSet<>();
         this.notifications = Boolean.TRUE;
     }
 
+    public Schedule(ScheduleEntity scheduleEntity) {
+        this.id = scheduleEntity.getId();
+        this.fileName = scheduleEntity.getFileName();
+        this.publicLink = scheduleEntity.getPublicLink();
+        this.conferences = scheduleEntity.getConferences().stream()
+                .map(conferenceEntity -> new Conference(this, conferenceEntity))
+                .collect(Collectors.toSet());
+        this.notifications = scheduleEntity.getNotifications();
+    }
+
+    /**
+     * Keeps only the given meetings of a stored schedule, grouped into their conferences.
+     */
+    public Schedule(ScheduleEntity scheduleEntity, Collection<MeetingEntity> meetingEntities) {
+        this.id = scheduleEntity.getId();
+        this.fileName = scheduleEntity.getFileName();
+        this.publicLink = scheduleEntity.getPublicLink();
+        this.conferences = meetingEntities.stream()
+                .collect(Collectors.groupingBy(MeetingEntity::getConferenceEntity))
+                .values().stream()
+                .map(conferenceMeetings -> new Conference(this, conferenceMeetings))
+                .collect(Collectors.toSet());
+        this.notifications = scheduleEntity.getNotifications();
+    }
+
+    /**
+     * Empty schedule with the name and link of the given one, to be filled with a part of its meetings.
+     */
+    Schedule(Schedule schedule) {
+        this.id = schedule.id;
+        this.fileName = schedule.fileName;
+        this.publicLink = schedule.publicLink;
+        this.conferences = new HashSet<>();
+        this.notifications = schedule.notifications;
+    }
+
     public static void loadPublicLinks(Set<String> publicLinks) {
-        publicLinkSet.addAll(publicLinks);
+        synchronized (Schedule.class) {
+            publicLinkSet.addAll(publicLinks);
+        }
     }
 
-    private String generatePublicLink() {
+    private static synchronized String generatePublicLink() {
         final int length = 64;
         String publicLink = RandomString.make(length);
 
@@ -41,22 +82,8 @@ public class Schedule {
         return publicLink;
     }
 
-    /**
-     * returns true if schedules have no collisions
-     */
-    public Pair<UploadConflictResponse.ConflictList, Boolean> compareEventWithSchedule(Meeting meeting, Schedule otherSchedule, boolean sameSchedule) {
-        boolean noCollisions = true;
-        UploadConflictResponse.ConflictList conflictList = new UploadConflictResponse.ConflictList(otherSchedule.fileName);
-        for (Conference otherConference : otherSchedule.getConferences()) {
-            Pair<List<UploadConflictResponse.Conflict>, Boolean> compareConference =
-                    meeting.getConference().compareConference(meeting, otherConference, sameSchedule);
-            if (!compareConference.getSecond()) {
-                conflictList.conflictedEvents.addAll(compareConference.getFirst());
-                noCollisions = false;
-            }
-        }
-
-        return Pair.of(conflictList, noCollisions);
+    public Integer getId() {
+        return id;
     }
 
     public String getFileName() {
@@ -67,7 +94,25 @@ public class Schedule {
         return conferences;
     }
 
-    public String getPublicLink() {
+    /**
+     * Built on first use, once the schedule is fully parsed or loaded.
+     */
+    public ResourceBuckets getResourceBuckets() {
+        ResourceBuckets buckets = resourceBuckets;
+        if (buckets == null) {
+            buckets = new ResourceBuckets(this);
+            resourceBuckets = buckets;
+        }
+        return buckets;
+    }
+
+    /**
+     * Schedules read from a file get their link when it is first asked for, which happens only when they are stored,
+     * so files that are only checked do not take links.
+     */
+    public synchronized String getPublicLink() {
+        if (publicLink == null)
+            publicLink = generatePublicLink();
         return publicLink;
     }
 
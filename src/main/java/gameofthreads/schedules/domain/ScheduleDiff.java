@@ -0,0 +1,113 @@
+package gameofthreads.schedules.domain;
+
+import gameofthreads.schedules.entity.ConferenceEntity;
+import gameofthreads.schedules.entity.MeetingEntity;
+import gameofthreads.schedules.entity.ScheduleEntity;
+
+import java.util.*;
+
+/**
+ * Difference between a re-uploaded schedule and the stored one, with meetings matched by content.
+ * Every new conference is paired with the stored conference sharing most of its meetings, so an update
+ * keeps the rows that did not change and only the added meetings need a collision check.
+ */
+public class ScheduleDiff {
+    private final Schedule added;
+    private final Schedule kept;
+    private final Map<Conference, ConferenceEntity> addedConferences = new LinkedHashMap<>();
+    private final List<MeetingEntity> removed = new ArrayList<>();
+    private final List<ConferenceEntity> unmatchedConferences = new ArrayList<>();
+
+    public ScheduleDiff(Schedule parsed, ScheduleEntity stored) {
+        this.added = new Schedule(parsed);
+        this.kept = new Schedule(parsed);
+
+        Map<List<Object>, MeetingEntity> storedMeetings = new HashMap<>();
+        for (ConferenceEntity conferenceEntity : stored.getConferences()) {
+            for (MeetingEntity meetingEntity : conferenceEntity.getMeetingEntities()) {
+                storedMeetings.put(new Meeting(null, meetingEntity).contentKey(), meetingEntity);
+            }
+        }
+
+        Set<ConferenceEntity> matched = new HashSet<>();
+        for (Conference conference : parsed.getConferences()) {
+            if (conference == null)
+                continue;
+            ConferenceEntity conferenceEntity = match(conference, storedMeetings, matched);
+            Conference addedConference = new Conference(added);
+            Conference keptConference = new Conference(kept);
+
+            for (Meeting meeting : conference.getMeetings()) {
+                MeetingEntity meetingEntity = storedMeetings.get(meeting.contentKey());
+                if (meetingEntity != null && meetingEntity.getConferenceEntity() == conferenceEntity) {
+                    storedMeetings.remove(meeting.contentKey());
+                    keptConference.getMeetings().add(meeting);
+                } else {
+                    addedConference.getMeetings().add(meeting);
+                }
+            }
+
+            if (!addedConference.getMeetings().isEmpty()) {
+                added.getConferences().add(addedConference);
+                addedConferences.put(addedConference, conferenceEntity);
+            }
+            if (!keptConference.getMeetings().isEmpty())
+                kept.getConferences().add(keptConference);
+        }
+
+        removed.addAll(storedMeetings.values());
+        for (ConferenceEntity conferenceEntity : stored.getConferences()) {
+            if (!matched.contains(conferenceEntity))
+                unmatchedConferences.add(conferenceEntity);
+        }
+    }
+
+    private static ConferenceEntity match(Conference conference, Map<List<Object>, MeetingEntity> storedMeetings,
+                                          Set<ConferenceEntity> matched) {
+        Map<ConferenceEntity, Integer> shared = new HashMap<>();
+        for (Meeting meeting : conference.getMeetings()) {
+            MeetingEntity meetingEntity = storedMeetings.get(meeting.contentKey());
+            if (meetingEntity != null && !matched.contains(meetingEntity.getConferenceEntity()))
+                shared.merge(meetingEntity.getConferenceEntity(), 1, Integer::sum);
+        }
+
+        Optional<ConferenceEntity> best = shared.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey);
+        best.ifPresent(matched::add);
+        return best.orElse(null);
+    }
+
+    /**
+     * Meetings missing from the stored schedule, to be checked for collisions.
+     */
+    public Schedule getAdded() {
+        return added;
+    }
+
+    /**
+     * Meetings present in both versions. They were already checked against every stored schedule.
+     */
+    public Schedule getKept() {
+        return kept;
+    }
+
+    /**
+     * Conferences of added meetings, mapped to the stored conference they go to, or null for a new one.
+     */
+    public Map<Conference, ConferenceEntity> getAddedConferences() {
+        return addedConferences;
+    }
+
+    public List<MeetingEntity> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Stored conferences no new conference was paired with. None of their meetings are kept.
+     */
+    public List<ConferenceEntity> getUnmatchedConferences() {
+        return unmatchedConferences;
+    }
+
+}
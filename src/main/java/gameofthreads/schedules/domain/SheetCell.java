@@ -0,0 +1,21 @@
+package gameofthreads.schedules.domain;
+
+import java.util.Date;
+
+/**
+ * Cell values the parser reads, with the same conversions and type mismatch errors as a POI cell.
+ */
+interface SheetCell {
+
+    double getNumericCellValue();
+
+    Date getDateCellValue();
+
+    String getStringCellValue();
+
+    /**
+     * Cell value as POI prints it: numbers with a fraction, dates in the dd-MMM-yyyy format, formulas as text.
+     */
+    String toString();
+
+}
@@ -0,0 +1,137 @@
+package gameofthreads.schedules.domain;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Finds the slots nearest to a conflicting meeting in which its room, lecturer and group are all free.
+ * Slots start on the {@link OccupancyCalendar#SLOT_MINUTES} grid and, since intervals are closed,
+ * never touch a neighbouring meeting.
+ */
+public class SlotSuggester {
+    private final List<OccupancyTimeline> timelines;
+    private final Request request;
+
+    public SlotSuggester(List<OccupancyTimeline> timelines, Request request) {
+        this.timelines = timelines;
+        this.request = request;
+    }
+
+    public List<OccupancyTimeline.Interval> suggest(Meeting meeting) {
+        LocalDateTime start = meeting.getDateStart();
+        Duration length = Duration.between(start, ResourceBuckets.activeUntil(meeting));
+        LocalDateTime from = request.scope.start(start.toLocalDate());
+        LocalDateTime to = request.scope.end(start.toLocalDate());
+
+        PriorityQueue<Walk> walks = new PriorityQueue<>();
+        for (OccupancyTimeline.Interval free : OccupancyTimeline.findFree(timelines, ResourceKey.of(meeting), from, to, meeting)) {
+            LocalDateTime earliest = slotAfter(free.getFrom());
+            LocalDateTime latest = slotBefore(free.getTo().minus(length));
+            if (earliest.isAfter(latest))
+                continue;
+
+            LocalDateTime nearest = slotAfter(start.minusNanos(1));
+            if (nearest.isBefore(earliest))
+                nearest = earliest;
+            if (nearest.isAfter(latest))
+                nearest = latest;
+            walks.add(new Walk(start, nearest, latest, OccupancyCalendar.SLOT_MINUTES));
+            if (nearest.isAfter(earliest))
+                walks.add(new Walk(start, nearest.minusMinutes(OccupancyCalendar.SLOT_MINUTES), earliest, -OccupancyCalendar.SLOT_MINUTES));
+        }
+
+        List<OccupancyTimeline.Interval> slots = new ArrayList<>();
+        Duration meetingLength = Duration.between(start, meeting.getDateEnd());
+        while (slots.size() < request.count && !walks.isEmpty()) {
+            Walk walk = walks.poll();
+            slots.add(new OccupancyTimeline.Interval(walk.next, walk.next.plus(meetingLength)));
+            if (walk.advance())
+                walks.add(walk);
+        }
+        return slots;
+    }
+
+    /**
+     * First slot starting strictly after the given time.
+     */
+    private static LocalDateTime slotAfter(LocalDateTime time) {
+        LocalDateTime minute = time.truncatedTo(ChronoUnit.MINUTES);
+        return minute.plusMinutes(OccupancyCalendar.SLOT_MINUTES - minute.getMinute() % OccupancyCalendar.SLOT_MINUTES);
+    }
+
+    /**
+     * Last slot starting strictly before the given time.
+     */
+    private static LocalDateTime slotBefore(LocalDateTime time) {
+        LocalDateTime minute = time.minusNanos(1).truncatedTo(ChronoUnit.MINUTES);
+        return minute.minusMinutes(minute.getMinute() % OccupancyCalendar.SLOT_MINUTES);
+    }
+
+    /**
+     * Slots of one free gap walked away from the original start in one direction, so each next slot is
+     * no nearer than the previous one. Walks of all gaps are merged by distance, earlier slots first on ties.
+     */
+    private static final class Walk implements Comparable<Walk> {
+        private final LocalDateTime start;
+        private final LocalDateTime last;
+        private final long step;
+        private LocalDateTime next;
+        private Duration distance;
+
+        private Walk(LocalDateTime start, LocalDateTime first, LocalDateTime last, long step) {
+            this.start = start;
+            this.last = last;
+            this.step = step;
+            this.next = first;
+            this.distance = Duration.between(first, start).abs();
+        }
+
+        private boolean advance() {
+            if (next.equals(last))
+                return false;
+            next = next.plusMinutes(step);
+            distance = Duration.between(next, start).abs();
+            return true;
+        }
+
+        @Override
+        public int compareTo(Walk other) {
+            int byDistance = distance.compareTo(other.distance);
+            return (byDistance != 0) ? byDistance : next.compareTo(other.next);
+        }
+    }
+
+    public enum Scope {
+        DAY, WEEK;
+
+        public LocalDateTime start(LocalDate day) {
+            return (this == DAY) ? day.atStartOfDay() : day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+        }
+
+        public LocalDateTime end(LocalDate day) {
+            return (this == DAY) ? day.plusDays(1).atStartOfDay() : start(day).plusWeeks(1);
+        }
+    }
+
+    public static final class Request {
+        private final int count;
+        private final Scope scope;
+
+        public Request(int count, Scope scope) {
+            this.count = count;
+            this.scope = scope;
+        }
+
+        public Scope getScope() {
+            return scope;
+        }
+    }
+
+}
@@ -0,0 +1,360 @@
+package gameofthreads.schedules.domain;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.formula.eval.ErrorEval;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the sheets of a workbook with SAX and hands their rows to the consumer one at a time.
+ * Only the shared strings and the styles stay in memory, the cells of a row are dropped once it is consumed.
+ * Cells behave as XSSFWorkbook cells do, so both ways of reading give the same schedule.
+ */
+class StreamingSheetReader {
+    private static final Pattern ESCAPED_CHARACTER = Pattern.compile("_x([0-9A-F]{4})_");
+
+    private final OPCPackage workbook;
+    private final List<String> sharedStrings = new ArrayList<>();
+    private StylesTable styles;
+    private Boolean[] dateStyles = new Boolean[0];
+    private boolean date1904;
+
+    StreamingSheetReader(OPCPackage workbook) {
+        this.workbook = workbook;
+    }
+
+    /**
+     * Loads what the sheets share and opens every sheet, in workbook order.
+     */
+    List<InputStream> openSheets() throws IOException, OpenXML4JException, SAXException, ParserConfigurationException {
+        XSSFReader reader = new XSSFReader(workbook);
+        for (PackagePart part : workbook.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType())) {
+            read(part.getInputStream(), new SharedStringsHandler());
+        }
+        for (PackagePart part : workbook.getPartsByContentType(XSSFRelation.STYLES.getContentType())) {
+            styles = new StylesTable(part, null);
+            dateStyles = new Boolean[styles.getNumCellStyles()];
+            for (int i = 0; i < dateStyles.length; i++) {
+                try {
+                    dateStyles[i] = isDateStyle(i);
+                } catch (RuntimeException ignored) {
+                    // left to the cells using the style, as the workbook would fail on them only
+                }
+            }
+        }
+        read(reader.getWorkbookData(), new WorkbookHandler());
+
+        List<InputStream> sheets = new ArrayList<>();
+        reader.getSheetsData().forEachRemaining(sheets::add);
+        return sheets;
+    }
+
+    /**
+     * Rows come in sheet order, each as the cells present in it, in column order. Exceptions thrown by
+     * the consumer stop the reading and are rethrown as they are. Once the sheets are open, they can be read
+     * at the same time.
+     */
+    void readSheet(InputStream sheet, Consumer<Iterator<SheetCell>> rowConsumer) throws IOException, SAXException, ParserConfigurationException {
+        read(sheet, new SheetHandler(rowConsumer));
+    }
+
+    private static void read(InputStream input, DefaultHandler handler) throws IOException, SAXException, ParserConfigurationException {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        XMLReader xmlReader = factory.newSAXParser().getXMLReader();
+        xmlReader.setContentHandler(handler);
+        try (input) {
+            xmlReader.parse(new InputSource(input));
+        }
+    }
+
+    private boolean isDateStyle(int style) {
+        XSSFCellStyle cellStyle = styles.getStyleAt(style);
+        return cellStyle != null && DateUtil.isADateFormat(cellStyle.getDataFormat(), cellStyle.getDataFormatString());
+    }
+
+    /**
+     * Decodes the _xHHHH_ escapes Excel writes for characters not allowed in XML.
+     */
+    private static String unescape(String text) {
+        if (!text.contains("_x"))
+            return text;
+
+        StringBuilder unescaped = new StringBuilder();
+        Matcher matcher = ESCAPED_CHARACTER.matcher(text);
+        int last = 0;
+        while (matcher.find()) {
+            unescaped.append(text, last, matcher.start()).append((char) Integer.parseInt(matcher.group(1), 16));
+            last = matcher.end();
+        }
+        return unescaped.append(text.substring(last)).toString();
+    }
+
+    /**
+     * Collects the text runs of every shared string, leaving out phonetic hints.
+     */
+    private class SharedStringsHandler extends DefaultHandler {
+        private final StringBuilder text = new StringBuilder();
+        private boolean inText;
+        private boolean inPhonetic;
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            if (localName.equals("si"))
+                text.setLength(0);
+            else if (localName.equals("rPh"))
+                inPhonetic = true;
+            else if (localName.equals("t") && !inPhonetic)
+                inText = true;
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            if (localName.equals("si"))
+                sharedStrings.add(text.toString());
+            else if (localName.equals("rPh"))
+                inPhonetic = false;
+            else if (localName.equals("t"))
+                inText = false;
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inText)
+                text.append(ch, start, length);
+        }
+    }
+
+    private class WorkbookHandler extends DefaultHandler {
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            if (localName.equals("workbookPr")) {
+                String value = attributes.getValue("date1904");
+                date1904 = "1".equals(value) || "true".equals(value);
+            }
+        }
+    }
+
+    private class SheetHandler extends DefaultHandler {
+        private final Consumer<Iterator<SheetCell>> rowConsumer;
+        private final StringBuilder text = new StringBuilder();
+        private List<SheetCell> cells;
+        private StreamedCell cell;
+        private boolean inText;
+        private boolean inPhonetic;
+
+        private SheetHandler(Consumer<Iterator<SheetCell>> rowConsumer) {
+            this.rowConsumer = rowConsumer;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row":
+                    cells = new ArrayList<>();
+                    break;
+                case "c":
+                    String style = attributes.getValue("s");
+                    cell = new StreamedCell(attributes.getValue("t"), (style == null) ? 0 : Integer.parseInt(style));
+                    break;
+                case "v":
+                case "f":
+                    text.setLength(0);
+                    inText = true;
+                    break;
+                case "is":
+                    text.setLength(0);
+                    break;
+                case "rPh":
+                    inPhonetic = true;
+                    break;
+                case "t":
+                    inText = !inPhonetic;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "row":
+                    rowConsumer.accept(cells.iterator());
+                    cells = null;
+                    break;
+                case "c":
+                    cells.add(cell);
+                    cell = null;
+                    break;
+                case "v":
+                    cell.value = text.toString();
+                    inText = false;
+                    break;
+                case "f":
+                    cell.formula = text.toString();
+                    inText = false;
+                    break;
+                case "is":
+                    cell.inlineString = text.toString();
+                    break;
+                case "rPh":
+                    inPhonetic = false;
+                    break;
+                case "t":
+                    inText = false;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inText)
+                text.append(ch, start, length);
+        }
+    }
+
+    private enum CellType {
+        BLANK, NUMERIC, STRING, BOOLEAN, ERROR, FORMULA
+    }
+
+    private class StreamedCell implements SheetCell {
+        private final String type;
+        private final int style;
+        private String value;
+        private String formula;
+        private String inlineString;
+
+        private StreamedCell(String type, int style) {
+            this.type = (type == null) ? "n" : type;
+            this.style = style;
+        }
+
+        private CellType getCellType() {
+            return (formula != null) ? CellType.FORMULA : getBaseCellType(true);
+        }
+
+        private CellType getBaseCellType(boolean blankCells) {
+            switch (type) {
+                case "b":
+                    return CellType.BOOLEAN;
+                case "e":
+                    return CellType.ERROR;
+                case "s":
+                case "inlineStr":
+                case "str":
+                    return CellType.STRING;
+                default:
+                    return (value == null && blankCells) ? CellType.BLANK : CellType.NUMERIC;
+            }
+        }
+
+        @Override
+        public double getNumericCellValue() {
+            CellType cellType = getCellType();
+            if (cellType == CellType.BLANK)
+                return 0.0;
+            if (cellType != CellType.NUMERIC && cellType != CellType.FORMULA)
+                throw typeMismatch(CellType.NUMERIC, cellType);
+            if (value == null)
+                return 0.0;
+
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                throw typeMismatch(CellType.NUMERIC, CellType.STRING);
+            }
+        }
+
+        @Override
+        public Date getDateCellValue() {
+            if (getCellType() == CellType.BLANK)
+                return null;
+            return DateUtil.getJavaDate(getNumericCellValue(), date1904);
+        }
+
+        @Override
+        public String getStringCellValue() {
+            CellType cellType = getCellType();
+            switch (cellType) {
+                case BLANK:
+                    return "";
+                case STRING:
+                    if (type.equals("inlineStr"))
+                        return unescape((inlineString != null) ? inlineString : (value != null) ? value : "");
+                    if (type.equals("s"))
+                        return (value != null) ? unescape(sharedStrings.get(Integer.parseInt(value))) : "";
+                    return unescape((value != null) ? value : "");
+                case FORMULA:
+                    if (getBaseCellType(false) != CellType.STRING)
+                        throw typeMismatch(CellType.STRING, getBaseCellType(false));
+                    return unescape((value != null) ? value : "");
+                default:
+                    throw typeMismatch(CellType.STRING, cellType);
+            }
+        }
+
+        @Override
+        public String toString() {
+            switch (getCellType()) {
+                case BLANK:
+                    return "";
+                case BOOLEAN:
+                    return "1".equals(value) ? "TRUE" : "FALSE";
+                case ERROR:
+                    return (value == null) ? ErrorEval.getText(0) : ErrorEval.getText(FormulaError.forString(value).getCode());
+                case FORMULA:
+                    return formula;
+                case NUMERIC:
+                    if (isDateFormatted())
+                        return new SimpleDateFormat("dd-MMM-yyyy").format(getDateCellValue());
+                    return getNumericCellValue() + "";
+                default:
+                    return getStringCellValue();
+            }
+        }
+
+        /**
+         * Styles that could not be read up front are looked up as the workbook cell would, failing the same way.
+         */
+        private boolean isDateFormatted() {
+            if (!DateUtil.isValidExcelDate(getNumericCellValue()) || styles == null || styles.getNumCellStyles() == 0)
+                return false;
+            if (style >= 0 && style < dateStyles.length && dateStyles[style] != null)
+                return dateStyles[style];
+            synchronized (styles) {
+                return isDateStyle(style);
+            }
+        }
+
+        private IllegalStateException typeMismatch(CellType expected, CellType actual) {
+            return new IllegalStateException("Cannot get a " + expected + " value from a " + actual + " cell");
+        }
+    }
+
+}
@@ -0,0 +1,161 @@
+package gameofthreads.schedules.domain;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonStreamParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads schedules exported as text in a single pass, handing every row to the consumer as the cells of a workbook row
+ * would be, so the parser reads them the same way. Only the current row is held in memory.
+ * Empty values behave as blank cells, values of the wrong kind as cells of the wrong type.
+ */
+class TextRowReader {
+    /**
+     * Field names of a JSON row, in the order of the workbook columns.
+     */
+    private static final String[] FIELDS = {"conference", "date", "times", "subject", "group", "lecturer", "type", "hours", "format", "room"};
+
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+    private static final DateTimeFormatter POLISH_DATE = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+    private TextRowReader() {
+    }
+
+    /**
+     * RFC 4180 rows: values containing commas, quotes or line breaks are quoted, quotes inside them doubled.
+     * Empty lines are skipped.
+     */
+    static void readCsv(BufferedReader reader, Consumer<Iterator<SheetCell>> rowConsumer) throws IOException {
+        skipByteOrderMark(reader);
+        List<SheetCell> cells = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        boolean emptyLine = true;
+
+        int next;
+        while ((next = reader.read()) != -1) {
+            char character = (char) next;
+            if (quoted) {
+                if (character != '"') {
+                    value.append(character);
+                } else {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        value.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                }
+            } else if (character == '"') {
+                quoted = true;
+                emptyLine = false;
+            } else if (character == ',') {
+                cells.add(new TextCell(value.toString()));
+                value.setLength(0);
+                emptyLine = false;
+            } else if (character == '\n' || character == '\r') {
+                if (character == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n')
+                        reader.reset();
+                }
+                if (!emptyLine) {
+                    cells.add(new TextCell(value.toString()));
+                    rowConsumer.accept(cells.iterator());
+                    cells = new ArrayList<>();
+                }
+                value.setLength(0);
+                emptyLine = true;
+            } else {
+                value.append(character);
+                emptyLine = false;
+            }
+        }
+
+        if (!emptyLine) {
+            cells.add(new TextCell(value.toString()));
+            rowConsumer.accept(cells.iterator());
+        }
+    }
+
+    /**
+     * JSON objects one after another, usually one per line. A missing or null field is a blank cell.
+     */
+    static void readNdjson(BufferedReader reader, Consumer<Iterator<SheetCell>> rowConsumer) throws IOException {
+        skipByteOrderMark(reader);
+        JsonStreamParser rows = new JsonStreamParser(reader);
+        while (rows.hasNext()) {
+            JsonObject row = rows.next().getAsJsonObject();
+            List<SheetCell> cells = new ArrayList<>(FIELDS.length);
+            for (String field : FIELDS) {
+                JsonElement value = row.get(field);
+                cells.add(new TextCell((value == null || value.isJsonNull()) ? "" : value.getAsString()));
+            }
+            rowConsumer.accept(cells.iterator());
+        }
+    }
+
+    private static void skipByteOrderMark(BufferedReader reader) throws IOException {
+        reader.mark(1);
+        if (reader.read() != BYTE_ORDER_MARK)
+            reader.reset();
+    }
+
+    private static class TextCell implements SheetCell {
+        private final String text;
+
+        private TextCell(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public double getNumericCellValue() {
+            if (text.isEmpty())
+                return 0.0;
+            try {
+                return Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                throw new IllegalStateException("Cannot get a NUMERIC value from a STRING cell");
+            }
+        }
+
+        /**
+         * ISO dates, or the day.month.year dates of Polish exports.
+         */
+        @Override
+        public Date getDateCellValue() {
+            if (text.isEmpty())
+                return null;
+            LocalDate date;
+            try {
+                date = (text.indexOf('.') > 0) ? LocalDate.parse(text, POLISH_DATE) : LocalDate.parse(text);
+            } catch (DateTimeParseException e) {
+                throw new IllegalStateException("Cannot get a DATE value from a STRING cell");
+            }
+            return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+        }
+
+        @Override
+        public String getStringCellValue() {
+            return text;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package gameofthreads.schedules.domain;
+
+import java.util.Locale;
+import java.util.Optional;
+
+public enum UploadFormat {
+    /**
+     * Excel workbook, every sheet holds rows of the schedule.
+     */
+    XLSX,
+    /**
+     * Comma separated values with a header line, in the columns of the workbook.
+     */
+    CSV,
+    /**
+     * One JSON object per line, with a field for every column of the workbook.
+     */
+    NDJSON;
+
+    private static final String WORKBOOK_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    /**
+     * Files are known by the extension of their name, the content type of the uploaded part decides only
+     * when the name has none of the known ones.
+     */
+    public static Optional<UploadFormat> of(String fileName, String contentType) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".xlsx") || name.endsWith(".xls"))
+            return Optional.of(XLSX);
+        if (name.endsWith(".csv"))
+            return Optional.of(CSV);
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl"))
+            return Optional.of(NDJSON);
+
+        String type = (contentType == null) ? "" : contentType.toLowerCase(Locale.ROOT);
+        if (type.startsWith(WORKBOOK_TYPE))
+            return Optional.of(XLSX);
+        if (type.startsWith("text/csv"))
+            return Optional.of(CSV);
+        if (type.startsWith("application/x-ndjson"))
+            return Optional.of(NDJSON);
+        return Optional.empty();
+    }
+}
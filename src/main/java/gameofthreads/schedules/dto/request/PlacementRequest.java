@@ -0,0 +1,56 @@
+package gameofthreads.schedules.dto.request;
+
+import gameofthreads.schedules.entity.MeetingFormat;
+import gameofthreads.schedules.entity.MeetingType;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+public class PlacementRequest implements Serializable {
+    public final LocalDate firstDay;
+    public final Integer days;
+    public final LocalTime dayStart;
+    public final LocalTime dayEnd;
+    public final Integer timeLimitSeconds;
+    public final Long maxIterations;
+    public final List<PlacementMeeting> meetings;
+
+    public PlacementRequest(LocalDate firstDay, Integer days, LocalTime dayStart, LocalTime dayEnd,
+                            Integer timeLimitSeconds, Long maxIterations, List<PlacementMeeting> meetings) {
+        this.firstDay = firstDay;
+        this.days = days;
+        this.dayStart = dayStart;
+        this.dayEnd = dayEnd;
+        this.timeLimitSeconds = timeLimitSeconds;
+        this.maxIterations = maxIterations;
+        this.meetings = meetings;
+    }
+
+    public static class PlacementMeeting implements Serializable {
+        public final String eventName;
+        public final String groupName;
+        public final String lecturerName;
+        public final String lecturerSurname;
+        public final MeetingType type;
+        public final Integer hours;
+        public final MeetingFormat form;
+        public final Integer durationMinutes;
+        public final List<String> rooms;
+
+        public PlacementMeeting(String eventName, String groupName, String lecturerName, String lecturerSurname,
+                                MeetingType type, Integer hours, MeetingFormat form, Integer durationMinutes, List<String> rooms) {
+            this.eventName = eventName;
+            this.groupName = groupName;
+            this.lecturerName = lecturerName;
+            this.lecturerSurname = lecturerSurname;
+            this.type = type;
+            this.hours = hours;
+            this.form = form;
+            this.durationMinutes = durationMinutes;
+            this.rooms = rooms;
+        }
+    }
+
+}
@@ -0,0 +1,32 @@
+package gameofthreads.schedules.dto.response;
+
+import gameofthreads.schedules.domain.OccupancyTimeline;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class AvailabilityResponse implements Serializable {
+    public final LocalDateTime from;
+    public final LocalDateTime to;
+    public final List<FreeInterval> free;
+
+    public AvailabilityResponse(LocalDateTime from, LocalDateTime to, List<OccupancyTimeline.Interval> free) {
+        this.from = from;
+        this.to = to;
+        this.free = free.stream()
+                .map(FreeInterval::new)
+                .collect(Collectors.toList());
+    }
+
+    public static class FreeInterval implements Serializable {
+        public final LocalDateTime from;
+        public final LocalDateTime to;
+
+        public FreeInterval(OccupancyTimeline.Interval interval) {
+            this.from = interval.getFrom();
+            this.to = interval.getTo();
+        }
+    }
+}
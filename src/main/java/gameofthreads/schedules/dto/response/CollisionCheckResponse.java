@@ -0,0 +1,49 @@
+package gameofthreads.schedules.dto.response;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CollisionCheckResponse implements Serializable {
+    public final Boolean noCollisions;
+    public final List<ScheduleCheck> schedules;
+
+    public CollisionCheckResponse(List<ScheduleCheck> schedules) {
+        this.noCollisions = schedules.stream().allMatch(schedule -> schedule.conflictCount == 0);
+        this.schedules = schedules;
+    }
+
+    public static class ScheduleCheck implements Serializable {
+        public final String scheduleName;
+        public final Integer eventsWithConflictsCount;
+        public final Integer conflictCount;
+        public final Map<String, Integer> conflictsByReason;
+        public final List<ConflictedScheduleCount> conflictsBySchedule;
+        public final Integer page;
+        public final Integer pageSize;
+        public final List<UploadConflictResponse.ConflictEvents> eventsWithConflicts;
+
+        public ScheduleCheck(String scheduleName, Integer eventsWithConflictsCount, Integer conflictCount, Integer page, Integer pageSize) {
+            this.scheduleName = scheduleName;
+            this.eventsWithConflictsCount = eventsWithConflictsCount;
+            this.conflictCount = conflictCount;
+            this.conflictsByReason = new LinkedHashMap<>();
+            this.conflictsBySchedule = new ArrayList<>();
+            this.page = page;
+            this.pageSize = pageSize;
+            this.eventsWithConflicts = new ArrayList<>();
+        }
+    }
+
+    public static class ConflictedScheduleCount implements Serializable {
+        public final String conflictedScheduleName;
+        public final Integer conflictCount;
+
+        public ConflictedScheduleCount(String conflictedScheduleName, Integer conflictCount) {
+            this.conflictedScheduleName = conflictedScheduleName;
+            this.conflictCount = conflictCount;
+        }
+    }
+}
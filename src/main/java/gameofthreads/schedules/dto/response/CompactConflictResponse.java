@@ -0,0 +1,37 @@
+package gameofthreads.schedules.dto.response;
+
+import gameofthreads.schedules.domain.Meeting;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conflicts listing every meeting once. Meetings point to a schedule by its index in {@link #schedules},
+ * and every conflict is an [eventId, otherEventId, reasonId] triple of indexes into {@link #meetings}
+ * and {@link #reasons}.
+ */
+public class CompactConflictResponse implements Serializable {
+    public final List<String> reasons;
+    public final List<String> schedules;
+    public final List<CompactMeeting> meetings;
+    public final List<int[]> conflicts;
+
+    public CompactConflictResponse(List<String> reasons) {
+        this.reasons = reasons;
+        this.schedules = new ArrayList<>();
+        this.meetings = new ArrayList<>();
+        this.conflicts = new ArrayList<>();
+    }
+
+    public static class CompactMeeting extends UploadConflictResponse.ConflictMeeting {
+        public final Integer id;
+        public final Integer schedule;
+
+        public CompactMeeting(Integer id, Integer schedule, Meeting meeting) {
+            super(meeting);
+            this.id = id;
+            this.schedule = schedule;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package gameofthreads.schedules.dto.response;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class ConflictMatrixResponse implements Serializable {
+    public final LocalDateTime scannedAt;
+    public final List<MatrixSchedule> schedules;
+    public final List<MatrixPair> pairs;
+
+    public ConflictMatrixResponse(LocalDateTime scannedAt, List<MatrixSchedule> schedules) {
+        this.scannedAt = scannedAt;
+        this.schedules = schedules;
+        this.pairs = new ArrayList<>();
+    }
+
+    public static class MatrixSchedule implements Serializable {
+        public final Integer id;
+        public final String scheduleName;
+
+        public MatrixSchedule(Integer id, String scheduleName) {
+            this.id = id;
+            this.scheduleName = scheduleName;
+        }
+    }
+
+    public static class MatrixPair implements Serializable {
+        public final Integer scheduleId;
+        public final Integer otherScheduleId;
+        public final Integer conflictCount;
+        public final Map<String, Integer> conflictsByReason;
+
+        public MatrixPair(Integer scheduleId, Integer otherScheduleId, Integer conflictCount, Map<String, Integer> conflictsByReason) {
+            this.scheduleId = scheduleId;
+            this.otherScheduleId = otherScheduleId;
+            this.conflictCount = conflictCount;
+            this.conflictsByReason = conflictsByReason;
+        }
+    }
+}
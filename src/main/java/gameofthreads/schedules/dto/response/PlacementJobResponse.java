@@ -0,0 +1,33 @@
+package gameofthreads.schedules.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import gameofthreads.schedules.dto.request.PlacementRequest;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PlacementJobResponse implements Serializable {
+    public final String id;
+    public final String status;
+    public final LocalDateTime submittedAt;
+    public final LocalDateTime finishedAt;
+    public final Long iterations;
+    public final Boolean stopped;
+    public final List<UploadConflictResponse.ConflictMeeting> placed;
+    public final List<PlacementRequest.PlacementMeeting> unplaced;
+
+    public PlacementJobResponse(String id, String status, LocalDateTime submittedAt, LocalDateTime finishedAt, Long iterations,
+                                Boolean stopped, List<UploadConflictResponse.ConflictMeeting> placed,
+                                List<PlacementRequest.PlacementMeeting> unplaced) {
+        this.id = id;
+        this.status = status;
+        this.submittedAt = submittedAt;
+        this.finishedAt = finishedAt;
+        this.iterations = iterations;
+        this.stopped = stopped;
+        this.placed = placed;
+        this.unplaced = unplaced;
+    }
+}
@@ -0,0 +1,15 @@
+package gameofthreads.schedules.dto.response;
+
+import java.io.Serializable;
+
+public class RowErrorResponse implements Serializable {
+    public final String error;
+    public final String fileName;
+    public final int row;
+
+    public RowErrorResponse(String error, String fileName, int row) {
+        this.error = error;
+        this.fileName = fileName;
+        this.row = row;
+    }
+}
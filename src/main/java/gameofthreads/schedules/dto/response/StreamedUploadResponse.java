@@ -0,0 +1,33 @@
+package gameofthreads.schedules.dto.response;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Lines of a streamed upload: a {@link ConflictLine} for every conflicting event as soon as it is found,
+ * then a single {@link ResultLine}.
+ */
+public class StreamedUploadResponse {
+
+    public static class ConflictLine implements Serializable {
+        public final String scheduleName;
+        public final UploadConflictResponse.ConflictMeeting event;
+        public final List<UploadConflictResponse.ConflictList> conflicts;
+
+        public ConflictLine(String scheduleName, UploadConflictResponse.ConflictEvents conflictEvents) {
+            this.scheduleName = scheduleName;
+            this.event = conflictEvents.event;
+            this.conflicts = conflictEvents.conflicts;
+        }
+    }
+
+    public static class ResultLine implements Serializable {
+        public final Boolean noCollisions;
+        public final UploadSuccessfulResponse uploaded;
+
+        public ResultLine(Boolean noCollisions, UploadSuccessfulResponse uploaded) {
+            this.noCollisions = noCollisions;
+            this.uploaded = uploaded;
+        }
+    }
+}
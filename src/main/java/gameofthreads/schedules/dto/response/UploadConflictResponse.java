@@ -1,6 +1,8 @@
 package gameofthreads.schedules.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import gameofthreads.schedules.domain.Meeting;
+import gameofthreads.schedules.domain.OccupancyTimeline;
 import gameofthreads.schedules.entity.MeetingFormat;
 import gameofthreads.schedules.entity.MeetingType;
 
@@ -8,6 +10,7 @@ import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class UploadConflictResponse implements Serializable {
     public final List<ConflictSchedule> schedulesWithConflicts;
@@ -29,10 +32,29 @@ public class UploadConflictResponse implements Serializable {
     public static class ConflictEvents implements Serializable {
         public final ConflictMeeting event;
         public final List<ConflictList> conflicts;
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        public final List<SuggestedSlot> suggestions;
 
         public ConflictEvents(ConflictMeeting event, List<ConflictList> conflicts) {
+            this(event, conflicts, null);
+        }
+
+        public ConflictEvents(ConflictMeeting event, List<ConflictList> conflicts, List<OccupancyTimeline.Interval> suggestions) {
             this.event = event;
             this.conflicts = conflicts;
+            this.suggestions = (suggestions == null) ? null : suggestions.stream()
+                    .map(SuggestedSlot::new)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    public static class SuggestedSlot implements Serializable {
+        public final LocalDateTime beginTime;
+        public final LocalDateTime endTime;
+
+        public SuggestedSlot(OccupancyTimeline.Interval slot) {
+            this.beginTime = slot.getFrom();
+            this.endTime = slot.getTo();
         }
     }
 
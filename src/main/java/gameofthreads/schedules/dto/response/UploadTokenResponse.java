@@ -0,0 +1,17 @@
+package gameofthreads.schedules.dto.response;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class UploadTokenResponse implements Serializable {
+    public final String token;
+    public final LocalDateTime expiresAt;
+    public final List<String> schedules;
+
+    public UploadTokenResponse(String token, LocalDateTime expiresAt, List<String> schedules) {
+        this.token = token;
+        this.expiresAt = expiresAt;
+        this.schedules = schedules;
+    }
+}
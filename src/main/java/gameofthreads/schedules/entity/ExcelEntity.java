@@ -3,6 +3,7 @@ package gameofthreads.schedules.entity;
 import org.hibernate.annotations.Type;
 
 import javax.persistence.*;
+import java.nio.file.Path;
 
 @Entity
 @Table(name = "excel")
@@ -16,11 +17,17 @@ public class ExcelEntity {
     @Column(name = "excel_type")
     private String excelType;
 
+    /**
+     * Inserted empty and never updated by Hibernate, the contents are streamed in from {@link #file} once the row exists.
+     */
     @Lob
     @Type(type = "org.hibernate.type.ImageType")
-    @Column(name = "data")
+    @Column(name = "data", updatable = false)
     private byte[] data;
 
+    @Transient
+    private Path file;
+
     @OneToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "schedule_id")
     private ScheduleEntity schedule;
@@ -28,10 +35,15 @@ public class ExcelEntity {
     public ExcelEntity() {
     }
 
-    public ExcelEntity(String excelName, String excelType, byte[] data) {
+    public ExcelEntity(String excelName, String excelType, Path file) {
         this.excelName = excelName;
         this.excelType = excelType;
-        this.data = data;
+        this.data = new byte[0];
+        this.file = file;
+    }
+
+    public Integer getId() {
+        return id;
     }
 
     public String getExcelName() {
@@ -46,6 +58,13 @@ public class ExcelEntity {
         return data;
     }
 
+    /**
+     * Uploaded file the contents are read from, null for stored entities.
+     */
+    public Path getFile() {
+        return file;
+    }
+
     public ScheduleEntity getSchedule() {
         return schedule;
     }
@@ -57,8 +76,4 @@ public class ExcelEntity {
     public void setExcelName(String excelName) {
         this.excelName = excelName;
     }
-
-    public void setData(byte[] data) {
-        this.data = data;
-    }
 }
@@ -23,7 +23,14 @@ public enum ErrorMessage {
     EXISTING_SUBSCRIPTION("Nie ma subskrypcji z takim adresem email dla tego harmonogramu."),
     NO_USER_WITH_EMAIL("Nie ma wykładowcy/użytkownika o takim adresie email."),
     FORBIDDEN_USER("Wyświetlanie subskrypcji innych użytkowników jest niedozwolone."),
-    LECTURER_ONLY("Ta funkcjonalność dostępna jest tylko dla prowadzących.");
+    LECTURER_ONLY("Ta funkcjonalność dostępna jest tylko dla prowadzących."),
+    WRONG_PAGE("Niepoprawny numer lub rozmiar strony."),
+    WRONG_UPLOAD_TOKEN("Niepoprawny lub wygasły token przesłanych plików."),
+    WRONG_AVAILABILITY_QUERY("Niepoprawny zakres dat lub nie wybrano żadnej sali, prowadzącego ani grupy."),
+    WRONG_PLACEMENT_REQUEST("Niepoprawny zakres dni lub godzin albo brak zajęć do rozmieszczenia."),
+    WRONG_PLACEMENT_ID("Niepoprawny identyfikator zadania rozmieszczania. Zadanie nie istnieje."),
+    WRONG_FILE_ROW("Niepoprawna wartość w wierszu przesłanego pliku."),
+    PLACEMENT_QUEUE_FULL("Zbyt wiele zadań rozmieszczania w kolejce. Spróbuj ponownie później.");
 
     private final String text;
 
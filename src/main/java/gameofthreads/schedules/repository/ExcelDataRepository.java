@@ -0,0 +1,12 @@
+package gameofthreads.schedules.repository;
+
+import java.nio.file.Path;
+
+public interface ExcelDataRepository {
+
+    /**
+     * Streams the file into the data column of a stored excel, without reading it into memory.
+     */
+    void writeData(Integer excelId, Path file);
+
+}
@@ -0,0 +1,34 @@
+package gameofthreads.schedules.repository;
+
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+
+public class ExcelDataRepositoryImpl implements ExcelDataRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void writeData(Integer excelId, Path file) {
+        // The row has to be inserted first, and the exclusion constraints on meetings checked before the file is sent.
+        entityManager.flush();
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("UPDATE excel SET data = ? WHERE id = ?");
+                 InputStream data = Files.newInputStream(file)) {
+                statement.setBinaryStream(1, data, (int) Files.size(file));
+                statement.setInt(2, excelId);
+                statement.executeUpdate();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+}
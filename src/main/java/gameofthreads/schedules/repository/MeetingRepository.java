@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Set;
 
 @Repository
@@ -16,4 +17,28 @@ public interface MeetingRepository extends JpaRepository<MeetingEntity, Integer>
 
     @Query("SELECT m FROM MeetingEntity AS m WHERE m.dateStart BETWEEN :start AND :end")
     Set<MeetingEntity> findTomorrowsMeetings(LocalDateTime start, LocalDateTime end);
+
+    @Query("SELECT m FROM MeetingEntity AS m JOIN FETCH m.conference c JOIN FETCH c.schedule " +
+            "WHERE m.dateStart <= :end AND (m.dateEnd >= :start OR m.dateStart >= :start)")
+    List<MeetingEntity> findRunningBetween(LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Meetings sharing a room, lecturer or group with any of the candidates while overlapping it in time.
+     * Candidates are a json array of objects with date_start, date_end, room, format, lecturer_name,
+     * lecturer_surname and group_name. Each branch of the union is answered by one GiST index on period.
+     */
+    @Query(value = "WITH candidate AS (" +
+            "SELECT c.room, c.format, c.lecturer_name, c.lecturer_surname, c.group_name, " +
+            "tsrange(c.date_start, GREATEST(c.date_start, c.date_end), '[]') AS period " +
+            "FROM json_to_recordset(CAST(:candidates AS json)) AS c(date_start timestamp, date_end timestamp, " +
+            "room text, format text, lecturer_name text, lecturer_surname text, group_name text)) " +
+            "SELECT m.* FROM meeting m WHERE m.id IN (" +
+            "SELECT m.id FROM meeting m JOIN candidate c ON m.room = c.room AND m.period && c.period " +
+            "WHERE m.format <> 'HOME' AND c.format <> 'HOME' " +
+            "UNION SELECT m.id FROM meeting m JOIN candidate c ON m.lecturer_name = c.lecturer_name " +
+            "AND m.lecturer_surname = c.lecturer_surname AND m.period && c.period " +
+            "UNION SELECT m.id FROM meeting m JOIN candidate c ON m.group_name = c.group_name AND m.period && c.period) " +
+            "AND m.conference_id NOT IN (SELECT id FROM conference WHERE schedule_id = :excludedScheduleId)",
+            nativeQuery = true)
+    List<MeetingEntity> findOverlapping(String candidates, Integer excludedScheduleId);
 }
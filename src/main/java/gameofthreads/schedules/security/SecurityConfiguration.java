@@ -29,6 +29,9 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
                                 .antMatchers(HttpMethod.GET, "/api/schedules/").hasAnyAuthority("SCOPE_ADMIN", "SCOPE_LECTURER")
                                 .antMatchers(HttpMethod.GET, "/api/schedules/{scheduleId}").hasAnyAuthority("SCOPE_ADMIN", "SCOPE_LECTURER")
                                 .antMatchers("/api/schedules/*").hasAuthority("SCOPE_ADMIN")
+                                .antMatchers("/api/conflicts").hasAuthority("SCOPE_ADMIN")
+                                .antMatchers("/api/placements/**").hasAuthority("SCOPE_ADMIN")
+                                .antMatchers(HttpMethod.GET, "/api/availability").hasAnyAuthority("SCOPE_ADMIN", "SCOPE_LECTURER")
                                 .antMatchers("/api/subscription/add").hasAuthority("SCOPE_ADMIN")
                                 .antMatchers("/api/subscription/addByLink").permitAll()
                                 .antMatchers(HttpMethod.PUT, "/api/users/{id}").hasAnyAuthority("SCOPE_ADMIN", "SCOPE_LECTURER")
@@ -0,0 +1,96 @@
+package gameofthreads.schedules.service;
+
+import gameofthreads.schedules.domain.OccupancyCalendar;
+import gameofthreads.schedules.domain.OccupancyIndex;
+import gameofthreads.schedules.domain.OccupancyTimeline;
+import gameofthreads.schedules.domain.ResourceKey;
+import gameofthreads.schedules.domain.Schedule;
+import gameofthreads.schedules.dto.response.AvailabilityResponse;
+import gameofthreads.schedules.entity.LecturerEntity;
+import gameofthreads.schedules.entity.MeetingEntity;
+import gameofthreads.schedules.entity.ScheduleEntity;
+import gameofthreads.schedules.message.ErrorMessage;
+import gameofthreads.schedules.repository.LecturerRepository;
+import gameofthreads.schedules.repository.MeetingRepository;
+import io.vavr.control.Either;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+public class AvailabilityService {
+    private final OccupancyIndex occupancyIndex;
+    private final MeetingRepository meetingRepository;
+    private final LecturerRepository lecturerRepository;
+
+    public AvailabilityService(OccupancyIndex occupancyIndex, MeetingRepository meetingRepository,
+                               LecturerRepository lecturerRepository) {
+        this.occupancyIndex = occupancyIndex;
+        this.meetingRepository = meetingRepository;
+        this.lecturerRepository = lecturerRepository;
+    }
+
+    /**
+     * Intervals in which none of the rooms, lecturers and groups is busy. Answered from the occupancy index,
+     * or in DATABASE mode from a timeline built only of the meetings running within the range.
+     */
+    @Transactional(readOnly = true)
+    public Either<Object, AvailabilityResponse> findFree(LocalDateTime from, LocalDateTime to, List<String> rooms,
+                                                         List<Integer> lecturerIds, List<String> groups) {
+        if (from.isAfter(to) || rooms.isEmpty() && lecturerIds.isEmpty() && groups.isEmpty())
+            return Either.left(ErrorMessage.WRONG_AVAILABILITY_QUERY.asJson());
+
+        List<LecturerEntity> lecturers = lecturerRepository.findAllById(lecturerIds);
+        if (lecturers.size() != lecturerIds.stream().distinct().count())
+            return Either.left(ErrorMessage.WRONG_LECTURER_ID.asJson());
+
+        List<ResourceKey> keys = new ArrayList<>();
+        rooms.forEach(room -> keys.add(ResourceKey.room(room)));
+        lecturers.forEach(lecturer -> keys.add(ResourceKey.lecturer(lecturer.getName(), lecturer.getSurname())));
+        groups.forEach(group -> keys.add(ResourceKey.group(group)));
+
+        return Either.right(new AvailabilityResponse(from, to, findTimeline(from, to).findFree(keys, from, to)));
+    }
+
+    /**
+     * Stored meetings covering at least the given range.
+     */
+    @Transactional(readOnly = true)
+    public OccupancyTimeline findTimeline(LocalDateTime from, LocalDateTime to) {
+        return occupancyIndex.isEnabled() ? occupancyIndex.getTimeline() : loadTimeline(from, to);
+    }
+
+    /**
+     * Occupied slots of stored meetings, covering at least the given range.
+     */
+    @Transactional(readOnly = true)
+    public OccupancyCalendar findCalendar(LocalDateTime from, LocalDateTime to) {
+        if (occupancyIndex.isEnabled())
+            return occupancyIndex.getCalendar();
+
+        OccupancyCalendar calendar = new OccupancyCalendar();
+        loadSchedules(from, to).forEach(calendar::add);
+        return calendar;
+    }
+
+    private OccupancyTimeline loadTimeline(LocalDateTime from, LocalDateTime to) {
+        OccupancyTimeline timeline = new OccupancyTimeline();
+        loadSchedules(from, to).forEach(timeline::add);
+        return timeline;
+    }
+
+    private List<Schedule> loadSchedules(LocalDateTime from, LocalDateTime to) {
+        Map<ScheduleEntity, List<MeetingEntity>> meetingsBySchedule = meetingRepository.findRunningBetween(from, to).stream()
+                .collect(Collectors.groupingBy(meetingEntity -> meetingEntity.getConferenceEntity().getScheduleEntity()));
+
+        List<Schedule> schedules = new ArrayList<>();
+        meetingsBySchedule.forEach((scheduleEntity, meetings) -> schedules.add(new Schedule(scheduleEntity, meetings)));
+        return schedules;
+    }
+
+}
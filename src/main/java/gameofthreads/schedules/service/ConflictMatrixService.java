@@ -0,0 +1,77 @@
+package gameofthreads.schedules.service;
+
+import gameofthreads.schedules.domain.CollisionPool;
+import gameofthreads.schedules.domain.ConflictMatrix;
+import gameofthreads.schedules.domain.OccupancyIndex;
+import gameofthreads.schedules.domain.Schedule;
+import gameofthreads.schedules.dto.response.ConflictMatrixResponse;
+import gameofthreads.schedules.repository.ScheduleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the conflict matrix of all stored schedules. A single full scan runs once the application is ready,
+ * afterwards uploads, updates and deletions are applied as soon as they commit. The scan reads the schedules
+ * of the occupancy index, so the matrix shares their meetings instead of loading its own copy; only in
+ * DATABASE mode, where the index stays empty, are they read from the database.
+ */
+@Service
+public class ConflictMatrixService implements OccupancyIndex.Listener {
+    private final static Logger LOGGER = LoggerFactory.getLogger(ConflictMatrixService.class);
+
+    private final ConflictMatrix conflictMatrix = new ConflictMatrix();
+    private final ScheduleRepository scheduleRepository;
+    private final CollisionPool collisionPool;
+    private final OccupancyIndex occupancyIndex;
+
+    public ConflictMatrixService(ScheduleRepository scheduleRepository, CollisionPool collisionPool, OccupancyIndex occupancyIndex) {
+        this.scheduleRepository = scheduleRepository;
+        this.collisionPool = collisionPool;
+        this.occupancyIndex = occupancyIndex;
+        occupancyIndex.addListener(this);
+    }
+
+    @Transactional(readOnly = true)
+    @EventListener(ApplicationReadyEvent.class)
+    public void scan() {
+        long start = System.currentTimeMillis();
+        List<Schedule> schedules = occupancyIndex.isEnabled() ?
+                occupancyIndex.getSchedules() :
+                scheduleRepository.fetchAllWithConferencesAndMeetings().stream()
+                        .map(Schedule::new)
+                        .collect(Collectors.toList());
+        conflictMatrix.rebuild(schedules, collisionPool.getPool());
+        LOGGER.info("Conflict matrix of " + schedules.size() + " schedules computed in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    @Override
+    public void stored(Schedule schedule) {
+        conflictMatrix.put(schedule);
+    }
+
+    @Override
+    public void removed(Integer scheduleId) {
+        conflictMatrix.remove(scheduleId);
+    }
+
+    public ConflictMatrixResponse getMatrix() {
+        ConflictMatrixResponse response = new ConflictMatrixResponse(conflictMatrix.getScannedAt(),
+                conflictMatrix.getSchedules().stream()
+                        .map(schedule -> new ConflictMatrixResponse.MatrixSchedule(schedule.getId(), schedule.getFileName()))
+                        .collect(Collectors.toList()));
+
+        for (ConflictMatrix.PairConflicts pair : conflictMatrix.getPairs()) {
+            response.pairs.add(new ConflictMatrixResponse.MatrixPair(pair.getScheduleId(), pair.getOtherScheduleId(),
+                    pair.getConflictCount(), pair.getConflictsByReason()));
+        }
+        return response;
+    }
+
+}
@@ -1,39 +1,84 @@
 package gameofthreads.schedules.service;
 
-import gameofthreads.schedules.domain.CollisionDetector;
-import gameofthreads.schedules.domain.Parser;
-import gameofthreads.schedules.domain.Schedule;
+import gameofthreads.schedules.domain.*;
+import gameofthreads.schedules.dto.response.CollisionCheckResponse;
 import gameofthreads.schedules.dto.response.DetailedScheduleResponse;
+import gameofthreads.schedules.dto.response.StreamedUploadResponse;
 import gameofthreads.schedules.dto.response.UploadConflictResponse;
 import gameofthreads.schedules.dto.response.UploadSuccessfulResponse;
+import gameofthreads.schedules.dto.response.UploadTokenResponse;
 import gameofthreads.schedules.entity.*;
 import gameofthreads.schedules.message.ErrorMessage;
 import gameofthreads.schedules.repository.ConferenceRepository;
 import gameofthreads.schedules.repository.ExcelRepository;
 import gameofthreads.schedules.repository.LecturerRepository;
+import gameofthreads.schedules.repository.MeetingRepository;
 import gameofthreads.schedules.repository.ScheduleRepository;
+import gameofthreads.schedules.util.Transactions;
+import gameofthreads.schedules.util.UploadFiles;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.util.Pair;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 public class FileUploadService {
+    private final static Integer NO_SCHEDULE = 0;
+    private final static String EXCLUSION_VIOLATION = "23P01";
+
     private final ExcelRepository excelRepository;
     private final ConferenceRepository conferenceRepository;
     private final ScheduleRepository scheduleRepository;
     private final LecturerRepository lecturerRepository;
-    private List<ExcelEntity> approvedExcelEntities = new ArrayList<>();
+    private final MeetingRepository meetingRepository;
+    private final OccupancyIndex occupancyIndex;
+    private final CollisionMode collisionMode;
+    private final CollisionPool collisionPool;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxCheckDetails;
+    private final ObjectMapper objectMapper;
+    private final PendingUploads pendingUploads;
+    private final AvailabilityService availabilityService;
+    private final ParserMode parserMode;
+    private final ParsedScheduleCache parsedScheduleCache;
 
-    public FileUploadService(ExcelRepository excelRepository, ConferenceRepository conferenceRepository, ScheduleRepository scheduleRepository, LecturerRepository lecturerRepository) {
+    public FileUploadService(ExcelRepository excelRepository, ConferenceRepository conferenceRepository, ScheduleRepository scheduleRepository,
+                             LecturerRepository lecturerRepository, MeetingRepository meetingRepository, OccupancyIndex occupancyIndex,
+                             @Value("${app.collisions.mode}") CollisionMode collisionMode, CollisionPool collisionPool,
+                             PlatformTransactionManager transactionManager, @Value("${app.collisions.check.max-details}") int maxCheckDetails,
+                             ObjectMapper objectMapper, PendingUploads pendingUploads, AvailabilityService availabilityService,
+                             @Value("${app.uploads.parser}") ParserMode parserMode, ParsedScheduleCache parsedScheduleCache) {
         this.excelRepository = excelRepository;
         this.conferenceRepository = conferenceRepository;
         this.scheduleRepository = scheduleRepository;
         this.lecturerRepository = lecturerRepository;
+        this.meetingRepository = meetingRepository;
+        this.occupancyIndex = occupancyIndex;
+        this.collisionMode = collisionMode;
+        this.collisionPool = collisionPool;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxCheckDetails = maxCheckDetails;
+        this.objectMapper = objectMapper;
+        this.pendingUploads = pendingUploads;
+        this.availabilityService = availabilityService;
+        this.parserMode = parserMode;
+        this.parsedScheduleCache = parsedScheduleCache;
     }
 
     private Set<LecturerEntity> getLecturers(ScheduleEntity scheduleEntity, List<LecturerEntity> lecturersInDB) {
@@ -48,52 +93,476 @@ public class FileUploadService {
         return lecturers;
     }
 
-    public CollisionResponse checkCollisions(String fileName, ExcelEntity excelEntity, Integer updateScheduleId) throws IOException {
-        if (!fileName.contains(".xlsx") && !fileName.contains(".xls"))
-            return new CollisionResponse(null, null, ErrorMessage.GENERAL_ERROR, Boolean.FALSE);
-        Parser parser = new Parser(fileName, excelEntity.getData());
-        Optional<Schedule> optSchedule = parser.parse();
-        List<ExcelEntity> excelEntities = (updateScheduleId == null) ?
-                excelRepository.findAll() :
-                excelRepository.findAllWithoutId(updateScheduleId);
-        if (optSchedule.isPresent()) {
-            CollisionDetector collisionDetector = new CollisionDetector(optSchedule.get());
-            collisionDetector.loadSchedules(excelEntities);
-            collisionDetector.loadSchedules(approvedExcelEntities);
-            Pair<UploadConflictResponse.ConflictSchedule, Boolean> compareSchedules = collisionDetector.compareSchedules();
-            return new CollisionResponse(optSchedule.get(), compareSchedules.getFirst(), null, compareSchedules.getSecond());
+    private List<Schedule> findStoredSchedules(Schedule schedule, Integer updateScheduleId) {
+        if (collisionMode == CollisionMode.MEMORY) {
+            return (updateScheduleId == null) ?
+                    occupancyIndex.getSchedules() :
+                    occupancyIndex.getSchedulesWithoutId(updateScheduleId);
+        }
+        return transactionTemplate.execute(status -> findOverlappingSchedules(schedule, updateScheduleId));
+    }
+
+    private List<Schedule> findOverlappingSchedules(Schedule schedule, Integer updateScheduleId) {
+        List<MeetingEntity> overlapping = meetingRepository.findOverlapping(toCandidates(schedule),
+                (updateScheduleId == null) ? NO_SCHEDULE : updateScheduleId);
+        Map<ScheduleEntity, List<MeetingEntity>> overlappingBySchedule = overlapping.stream()
+                .collect(Collectors.groupingBy(meetingEntity -> meetingEntity.getConferenceEntity().getScheduleEntity()));
+
+        return overlappingBySchedule.entrySet().stream()
+                .sorted(Comparator.comparing(entry -> entry.getKey().getId()))
+                .map(entry -> new Schedule(entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    private String toCandidates(Schedule schedule) {
+        JsonArray candidates = new JsonArray();
+        for (Conference conference : schedule.getConferences()) {
+            for (Meeting meeting : conference.getMeetings()) {
+                JsonObject candidate = new JsonObject();
+                candidate.addProperty("date_start", meeting.getDateStart().toString());
+                candidate.addProperty("date_end", meeting.getDateEnd().toString());
+                candidate.addProperty("room", meeting.getRoom());
+                candidate.addProperty("format", meeting.getFormat().name());
+                candidate.addProperty("lecturer_name", meeting.getLecturerName());
+                candidate.addProperty("lecturer_surname", meeting.getLecturerSurname());
+                candidate.addProperty("group_name", meeting.getGroup());
+                candidates.add(candidate);
+            }
         }
+        return candidates.toString();
+    }
+
+    private Optional<Schedule> parse(String fileName, ExcelEntity excelEntity) throws IOException {
+        Optional<UploadFormat> format = UploadFormat.of(fileName, excelEntity.getExcelType());
+        if (format.isEmpty())
+            return Optional.empty();
+        return parsedScheduleCache.parse(fileName, excelEntity.getFile(), format.get(), parserMode);
+    }
+
+    private OccupancyCalendar storedCalendar() {
+        return (collisionMode == CollisionMode.MEMORY) ? occupancyIndex.getCalendar() : null;
+    }
+
+    public CollisionResponse checkCollisions(String fileName, ExcelEntity excelEntity, Integer updateScheduleId,
+                                             List<Schedule> approvedSchedules, CompactConflictCollector compactConflicts) throws IOException {
+        return checkCollisions(fileName, excelEntity, updateScheduleId, approvedSchedules, compactConflicts, null);
+    }
+
+    public CollisionResponse checkCollisions(String fileName, ExcelEntity excelEntity, Integer updateScheduleId, List<Schedule> approvedSchedules,
+                                             CompactConflictCollector compactConflicts, SlotSuggester.Request suggestions) throws IOException {
+        Optional<Schedule> optSchedule = parse(fileName, excelEntity);
+        if (optSchedule.isPresent())
+            return checkCollisions(optSchedule.get(), updateScheduleId, approvedSchedules, compactConflicts, suggestions);
 
         return new CollisionResponse(null, null, ErrorMessage.GENERAL_ERROR, Boolean.FALSE);
     }
 
-    @Transactional
-    public Pair<?, Boolean> saveFiles(MultipartFile[] files, ScheduleService scheduleService) throws IOException {
+    private CollisionResponse checkCollisions(Schedule schedule, Integer updateScheduleId, List<Schedule> approvedSchedules,
+                                              CompactConflictCollector compactConflicts, SlotSuggester.Request suggestions) {
+        CollisionDetector collisionDetector = new CollisionDetector(schedule, collisionPool);
+        collisionDetector.loadSchedules(findStoredSchedules(schedule, updateScheduleId), storedCalendar(), updateScheduleId == null);
+        collisionDetector.loadSchedules(approvedSchedules);
+        if (suggestions != null)
+            collisionDetector.suggestSlots(slotSuggester(schedule, approvedSchedules, suggestions));
+        return compare(schedule, collisionDetector, compactConflicts);
+    }
+
+    /**
+     * Looks for free slots among the stored meetings and those of the files uploaded together,
+     * within the weeks or days the schedule spans.
+     */
+    private SlotSuggester slotSuggester(Schedule schedule, List<Schedule> approvedSchedules, SlotSuggester.Request suggestions) {
+        OccupancyTimeline uploaded = new OccupancyTimeline();
+        uploaded.add(schedule);
+        approvedSchedules.forEach(uploaded::add);
+
+        List<Meeting> meetings = schedule.getConferences().stream()
+                .filter(Objects::nonNull)
+                .flatMap(conference -> conference.getMeetings().stream())
+                .collect(Collectors.toList());
+        if (meetings.isEmpty())
+            return null;
+
+        LocalDateTime from = meetings.stream().map(Meeting::getDateStart).min(Comparator.naturalOrder()).get();
+        LocalDateTime to = meetings.stream().map(Meeting::getDateStart).max(Comparator.naturalOrder()).get();
+        OccupancyTimeline stored = availabilityService.findTimeline(suggestions.getScope().start(from.toLocalDate()),
+                suggestions.getScope().end(to.toLocalDate()));
+        return new SlotSuggester(List.of(stored, uploaded), suggestions);
+    }
+
+    /**
+     * Reports into the compact collector when one is given, the response then carries no conflict schedule.
+     */
+    private CollisionResponse compare(Schedule schedule, CollisionDetector collisionDetector, CompactConflictCollector compactConflicts) {
+        if (compactConflicts != null)
+            return new CollisionResponse(schedule, null, null, collisionDetector.compareSchedules(compactConflicts));
+
+        Pair<UploadConflictResponse.ConflictSchedule, Boolean> compareSchedules = collisionDetector.compareSchedules();
+        return new CollisionResponse(schedule, compareSchedules.getFirst(), null, compareSchedules.getSecond());
+    }
+
+    private static Object conflictResponse(List<UploadConflictResponse.ConflictSchedule> schedulesWithConflicts,
+                                           CompactConflictCollector compactConflicts) {
+        return (compactConflicts != null) ? compactConflicts.getResponse() : new UploadConflictResponse(schedulesWithConflicts);
+    }
+
+    /**
+     * Collisions with meetings committed by a concurrent upload after our own check passed.
+     * Always reads the database, the occupancy index may not have caught up with the other commit yet.
+     */
+    private CollisionResponse findCommittedConflicts(Schedule schedule, Integer updateScheduleId, CompactConflictCollector compactConflicts) {
+        CollisionDetector collisionDetector = new CollisionDetector(schedule, collisionPool);
+        collisionDetector.loadSchedules(transactionTemplate.execute(status -> findOverlappingSchedules(schedule, updateScheduleId)));
+        return compare(schedule, collisionDetector, compactConflicts);
+    }
+
+    private static boolean isExclusionViolation(DataIntegrityViolationException exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && EXCLUSION_VIOLATION.equals(((SQLException) cause).getSQLState()))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks the files as {@link #saveFiles} would, without storing anything. Details are built only for
+     * one page of conflicting events per file, never more than the configured maximum.
+     */
+    public Pair<?, Boolean> checkFiles(MultipartFile[] files, int page, Integer pageSize, SlotSuggester.Request suggestions) throws IOException {
+        if (files.length == 1 && Objects.equals(files[0].getOriginalFilename(), ""))
+            return Pair.of(ErrorMessage.NO_FILES.asJson(), Boolean.FALSE);
+        if (page < 0 || (pageSize != null && pageSize < 1))
+            return Pair.of(ErrorMessage.WRONG_PAGE.asJson(), Boolean.FALSE);
+        int detailsPageSize = (pageSize == null) ? maxCheckDetails : Math.min(pageSize, maxCheckDetails);
+
+        List<Schedule> approvedSchedules = new ArrayList<>();
+        List<CollisionCheckResponse.ScheduleCheck> checks = new ArrayList<>();
+        for (MultipartFile file : files) {
+            String fileName = Objects.requireNonNull(file.getOriginalFilename());
+            ExcelEntity excelEntity = UploadFiles.spool(file);
+            Optional<Schedule> schedule;
+            try {
+                schedule = parse(fileName, excelEntity);
+            } finally {
+                UploadFiles.delete(List.of(excelEntity));
+            }
+            if (schedule.isEmpty())
+                return Pair.of(ErrorMessage.GENERAL_ERROR.asJson(), Boolean.FALSE);
+
+            CollisionDetector collisionDetector = new CollisionDetector(schedule.get(), collisionPool);
+            collisionDetector.loadSchedules(findStoredSchedules(schedule.get(), null), storedCalendar(), true);
+            collisionDetector.loadSchedules(approvedSchedules);
+            if (suggestions != null)
+                collisionDetector.suggestSlots(slotSuggester(schedule.get(), approvedSchedules, suggestions));
+            CollisionCheckResponse.ScheduleCheck check = collisionDetector.checkSchedules(page, detailsPageSize);
+            if (check.conflictCount == 0)
+                approvedSchedules.add(schedule.get());
+            checks.add(check);
+        }
+
+        return Pair.of(new CollisionCheckResponse(checks), Boolean.TRUE);
+    }
+
+    public Pair<?, Boolean> saveFiles(MultipartFile[] files, ScheduleService scheduleService, boolean compact,
+                                      SlotSuggester.Request suggestions) throws IOException {
         if (files.length == 1 && Objects.equals(files[0].getOriginalFilename(), ""))
             return Pair.of(ErrorMessage.NO_FILES.asJson(), Boolean.FALSE);
-        approvedExcelEntities = new ArrayList<>();
+        List<ExcelEntity> excelEntities = new ArrayList<>();
+        try {
+            return saveFiles(files, scheduleService, compact, suggestions, excelEntities);
+        } finally {
+            UploadFiles.delete(excelEntities);
+        }
+    }
+
+    private Pair<?, Boolean> saveFiles(MultipartFile[] files, ScheduleService scheduleService, boolean compact,
+                                       SlotSuggester.Request suggestions, List<ExcelEntity> excelEntities) throws IOException {
+        CompactConflictCollector compactConflicts = compact ? new CompactConflictCollector() : null;
+        List<Schedule> approvedSchedules = new ArrayList<>();
         List<ScheduleEntity> schedules = new ArrayList<>();
         List<UploadConflictResponse.ConflictSchedule> schedulesWithConflicts = new ArrayList<>();
 
+        List<String> fileNames = spool(files, excelEntities);
+        checkUploads(fileNames, excelEntities, approvedSchedules, schedulesWithConflicts, compactConflicts, suggestions);
+
+        if (schedulesWithConflicts.size() > 0) {
+            return Pair.of(conflictResponse(schedulesWithConflicts, compactConflicts), Boolean.FALSE);
+        }
+
+        for (Schedule schedule : approvedSchedules) {
+            ScheduleEntity scheduleEntity = scheduleService.getScheduleEntity(schedule);
+            schedule.getExcelEntity().setSchedule(scheduleEntity);
+            schedules.add(scheduleEntity);
+        }
+
+        return storeSchedules(approvedSchedules, schedules, compactConflicts);
+    }
+
+    private static List<String> spool(MultipartFile[] files, List<ExcelEntity> excelEntities) throws IOException {
+        List<String> fileNames = new ArrayList<>();
         for (MultipartFile file : files) {
-            String fileName = file.getOriginalFilename();
-            ExcelEntity excelEntity = new ExcelEntity(fileName, file.getContentType(), file.getBytes());
-            CollisionResponse collisionResponse = checkCollisions(Objects.requireNonNull(fileName), excelEntity, null);
+            fileNames.add(Objects.requireNonNull(file.getOriginalFilename()));
+            excelEntities.add(UploadFiles.spool(file));
+        }
+        return fileNames;
+    }
+
+    /**
+     * Approves the same files as checking them one after another against the stored schedules and the files approved
+     * before them would. All files are parsed and checked against the stored schedules in parallel, then against each
+     * other in one sweep. Only a file that collides is checked again on its own, to report its conflicts.
+     */
+    private void checkUploads(List<String> fileNames, List<ExcelEntity> excelEntities, List<Schedule> approvedSchedules,
+                              List<UploadConflictResponse.ConflictSchedule> schedulesWithConflicts,
+                              CompactConflictCollector compactConflicts, SlotSuggester.Request suggestions) throws IOException {
+        List<CollisionResponse> storedChecks = checkStored(fileNames, excelEntities);
+
+        List<Schedule> parsedSchedules = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < storedChecks.size(); i++) {
+            if (storedChecks.get(i).schedule != null) {
+                parsedSchedules.add(storedChecks.get(i).schedule);
+                positions.add(i);
+            }
+        }
+        Map<Integer, Set<Integer>> collidingFiles = new HashMap<>();
+        for (ConflictMatrix.PairConflicts pair : ConflictMatrix.between(parsedSchedules, collisionPool.getPool())) {
+            int file = positions.get(pair.getScheduleId());
+            int otherFile = positions.get(pair.getOtherScheduleId());
+            if (file != otherFile) {
+                collidingFiles.computeIfAbsent(file, f -> new HashSet<>()).add(otherFile);
+                collidingFiles.computeIfAbsent(otherFile, f -> new HashSet<>()).add(file);
+            }
+        }
+
+        Set<Integer> approvedFiles = new HashSet<>();
+        for (int i = 0; i < storedChecks.size(); i++) {
+            CollisionResponse collisionResponse = storedChecks.get(i);
+            boolean collidesWithApproved = collidingFiles.getOrDefault(i, Set.of()).stream().anyMatch(approvedFiles::contains);
+            if (collisionResponse.schedule != null && (!collisionResponse.noCollisions || collidesWithApproved))
+                collisionResponse = checkCollisions(collisionResponse.schedule, null, approvedSchedules, compactConflicts, suggestions);
+
             if (collisionResponse.noCollisions) {
-                collisionResponse.schedule.setExcelEntity(excelEntity);
-                ScheduleEntity scheduleEntity = scheduleService.getScheduleEntity(collisionResponse.schedule);
-                excelEntity.setSchedule(scheduleEntity);
-                schedules.add(scheduleEntity);
-                approvedExcelEntities.add(excelEntity);
+                collisionResponse.schedule.setExcelEntity(excelEntities.get(i));
+                approvedSchedules.add(collisionResponse.schedule);
+                approvedFiles.add(i);
             } else {
                 schedulesWithConflicts.add(collisionResponse.conflictSchedule);
             }
         }
+    }
+
+    /**
+     * Parses every file and checks it against the stored schedules only, in parallel, keeping the order of the files.
+     */
+    private List<CollisionResponse> checkStored(List<String> fileNames, List<ExcelEntity> excelEntities) throws IOException {
+        try {
+            return collisionPool.getPool().submit(() -> IntStream.range(0, fileNames.size()).parallel()
+                    .mapToObj(i -> checkStored(fileNames.get(i), excelEntities.get(i)))
+                    .collect(Collectors.toList())).join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private CollisionResponse checkStored(String fileName, ExcelEntity excelEntity) {
+        Optional<Schedule> optSchedule;
+        try {
+            optSchedule = parse(fileName, excelEntity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (optSchedule.isEmpty())
+            return new CollisionResponse(null, null, ErrorMessage.GENERAL_ERROR, Boolean.FALSE);
+
+        Schedule schedule = optSchedule.get();
+        CollisionDetector collisionDetector = new CollisionDetector(schedule, collisionPool);
+        collisionDetector.loadSchedules(findStoredSchedules(schedule, null), storedCalendar(), true);
+        return new CollisionResponse(schedule, null, null, collisionDetector.isCollisionFree());
+    }
+
+    /**
+     * Stores checked schedules. A concurrent upload may still have committed a colliding meeting in the meantime,
+     * the exclusion constraints then reject the insert and the conflicts are read back from the database.
+     */
+    private Pair<?, Boolean> storeSchedules(List<Schedule> approvedSchedules, List<ScheduleEntity> schedules,
+                                            CompactConflictCollector compactConflicts) {
+        try {
+            return Pair.of(transactionTemplate.execute(status -> persistSchedules(schedules)), Boolean.TRUE);
+        } catch (DataIntegrityViolationException e) {
+            if (!isExclusionViolation(e))
+                throw e;
+        }
+
+        List<UploadConflictResponse.ConflictSchedule> schedulesWithConflicts = new ArrayList<>();
+        for (Schedule schedule : approvedSchedules) {
+            CollisionResponse collisionResponse = findCommittedConflicts(schedule, null, compactConflicts);
+            if (!collisionResponse.noCollisions)
+                schedulesWithConflicts.add(collisionResponse.conflictSchedule);
+        }
+        return Pair.of(conflictResponse(schedulesWithConflicts, compactConflicts), Boolean.FALSE);
+    }
+
+    /**
+     * First phase of a two-phase upload: checks the files as {@link #saveFiles} would and, if none of them collide,
+     * keeps the parsed schedules under a token instead of storing them.
+     */
+    public Pair<?, Boolean> validateFiles(MultipartFile[] files, boolean compact) throws IOException {
+        if (files.length == 1 && Objects.equals(files[0].getOriginalFilename(), ""))
+            return Pair.of(ErrorMessage.NO_FILES.asJson(), Boolean.FALSE);
+        long indexVersion = occupancyIndex.getVersion();
+        CompactConflictCollector compactConflicts = compact ? new CompactConflictCollector() : null;
+        List<Schedule> approvedSchedules = new ArrayList<>();
+        List<UploadConflictResponse.ConflictSchedule> schedulesWithConflicts = new ArrayList<>();
+        List<ExcelEntity> excelEntities = new ArrayList<>();
+
+        try {
+            List<String> fileNames = spool(files, excelEntities);
+            checkUploads(fileNames, excelEntities, approvedSchedules, schedulesWithConflicts, compactConflicts, null);
+        } catch (IOException | RuntimeException e) {
+            UploadFiles.delete(excelEntities);
+            throw e;
+        }
 
         if (schedulesWithConflicts.size() > 0) {
-            return Pair.of(new UploadConflictResponse(schedulesWithConflicts), Boolean.FALSE);
+            UploadFiles.delete(excelEntities);
+            return Pair.of(conflictResponse(schedulesWithConflicts, compactConflicts), Boolean.FALSE);
+        }
+
+        PendingUploads.PendingUpload upload = pendingUploads.put(approvedSchedules, indexVersion);
+        return Pair.of(new UploadTokenResponse(upload.getToken(), upload.getExpiresAt(), approvedSchedules.stream()
+                .map(Schedule::getFileName).collect(Collectors.toList())), Boolean.TRUE);
+    }
+
+    /**
+     * Second phase of a two-phase upload: stores the validated schedules without parsing them again. They are checked
+     * again only if the occupancy index changed since the validation, or when there is no index to tell.
+     */
+    public Pair<?, Boolean> commitFiles(String token, ScheduleService scheduleService, boolean compact) {
+        Optional<PendingUploads.PendingUpload> upload = pendingUploads.take(token);
+        if (upload.isEmpty())
+            return Pair.of(ErrorMessage.WRONG_UPLOAD_TOKEN.asJson(), Boolean.FALSE);
+
+        try {
+            return commitSchedules(upload.get(), scheduleService, compact);
+        } finally {
+            UploadFiles.delete(upload.get().getExcelEntities());
+        }
+    }
+
+    private Pair<?, Boolean> commitSchedules(PendingUploads.PendingUpload upload, ScheduleService scheduleService, boolean compact) {
+        CompactConflictCollector compactConflicts = compact ? new CompactConflictCollector() : null;
+        List<Schedule> approvedSchedules = upload.getSchedules();
+        if (!occupancyIndex.isEnabled() || occupancyIndex.getVersion() != upload.getIndexVersion()) {
+            List<UploadConflictResponse.ConflictSchedule> schedulesWithConflicts = new ArrayList<>();
+            for (int i = 0; i < approvedSchedules.size(); i++) {
+                CollisionResponse collisionResponse =
+                        checkCollisions(approvedSchedules.get(i), null, approvedSchedules.subList(0, i), compactConflicts, null);
+                if (!collisionResponse.noCollisions)
+                    schedulesWithConflicts.add(collisionResponse.conflictSchedule);
+            }
+            if (schedulesWithConflicts.size() > 0)
+                return Pair.of(conflictResponse(schedulesWithConflicts, compactConflicts), Boolean.FALSE);
+        }
+
+        List<ScheduleEntity> schedules = new ArrayList<>();
+        for (Schedule schedule : approvedSchedules) {
+            ScheduleEntity scheduleEntity = scheduleService.getScheduleEntity(schedule);
+            schedule.getExcelEntity().setSchedule(scheduleEntity);
+            schedules.add(scheduleEntity);
+        }
+        return storeSchedules(approvedSchedules, schedules, compactConflicts);
+    }
+
+    /**
+     * Parses the files up front, then returns a body that streams conflicts as newline-delimited JSON
+     * while the check runs and stores the files if none of them collide. The last line carries the result.
+     */
+    public Pair<?, Boolean> saveFilesAsStream(MultipartFile[] files, ScheduleService scheduleService) throws IOException {
+        if (files.length == 1 && Objects.equals(files[0].getOriginalFilename(), ""))
+            return Pair.of(ErrorMessage.NO_FILES.asJson(), Boolean.FALSE);
+
+        List<Schedule> parsedSchedules = new ArrayList<>();
+        List<ExcelEntity> excelEntities = new ArrayList<>();
+        try {
+            for (MultipartFile file : files) {
+                String fileName = Objects.requireNonNull(file.getOriginalFilename());
+                ExcelEntity excelEntity = UploadFiles.spool(file);
+                excelEntities.add(excelEntity);
+                Optional<Schedule> schedule = parse(fileName, excelEntity);
+                if (schedule.isEmpty()) {
+                    UploadFiles.delete(excelEntities);
+                    return Pair.of(ErrorMessage.GENERAL_ERROR.asJson(), Boolean.FALSE);
+                }
+                schedule.get().setExcelEntity(excelEntity);
+                parsedSchedules.add(schedule.get());
+            }
+        } catch (IOException | RuntimeException e) {
+            UploadFiles.delete(excelEntities);
+            throw e;
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            try {
+                streamSaveFiles(parsedSchedules, scheduleService, outputStream);
+            } finally {
+                UploadFiles.delete(excelEntities);
+            }
+        };
+        return Pair.of(body, Boolean.TRUE);
+    }
+
+    private void streamSaveFiles(List<Schedule> parsedSchedules, ScheduleService scheduleService, OutputStream outputStream) throws IOException {
+        List<Schedule> approvedSchedules = new ArrayList<>();
+        List<ScheduleEntity> schedules = new ArrayList<>();
+        boolean noCollisions = true;
+
+        for (Schedule schedule : parsedSchedules) {
+            CollisionDetector collisionDetector = new CollisionDetector(schedule, collisionPool);
+            collisionDetector.loadSchedules(findStoredSchedules(schedule, null), storedCalendar(), true);
+            collisionDetector.loadSchedules(approvedSchedules);
+            if (collisionDetector.streamConflicts(conflictEvents -> writeLine(outputStream,
+                    new StreamedUploadResponse.ConflictLine(schedule.getFileName(), conflictEvents)))) {
+                ScheduleEntity scheduleEntity = scheduleService.getScheduleEntity(schedule);
+                schedule.getExcelEntity().setSchedule(scheduleEntity);
+                schedules.add(scheduleEntity);
+                approvedSchedules.add(schedule);
+            } else {
+                noCollisions = false;
+            }
+        }
+
+        if (noCollisions) {
+            try {
+                UploadSuccessfulResponse uploaded = transactionTemplate.execute(status -> persistSchedules(schedules));
+                writeLine(outputStream, new StreamedUploadResponse.ResultLine(Boolean.TRUE, uploaded));
+                return;
+            } catch (DataIntegrityViolationException e) {
+                if (!isExclusionViolation(e))
+                    throw e;
+            }
+
+            for (Schedule schedule : approvedSchedules) {
+                CollisionDetector collisionDetector = new CollisionDetector(schedule, collisionPool);
+                collisionDetector.loadSchedules(transactionTemplate.execute(status -> findOverlappingSchedules(schedule, null)));
+                collisionDetector.streamConflicts(conflictEvents -> writeLine(outputStream,
+                        new StreamedUploadResponse.ConflictLine(schedule.getFileName(), conflictEvents)));
+            }
         }
+        writeLine(outputStream, new StreamedUploadResponse.ResultLine(Boolean.FALSE, null));
+    }
 
+    private void writeLine(OutputStream outputStream, Object line) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(line));
+            outputStream.write('\n');
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private UploadSuccessfulResponse persistSchedules(List<ScheduleEntity> schedules) {
         List<LecturerEntity> lecturersInDB = lecturerRepository.findAll();
         List<LecturerEntity> lecturers = new ArrayList<>();
         for (ScheduleEntity schedule : schedules) {
@@ -102,37 +571,93 @@ public class FileUploadService {
 
         lecturerRepository.saveAll(lecturers);
         scheduleRepository.saveAll(schedules);
+        for (ScheduleEntity schedule : schedules) {
+            excelRepository.writeData(schedule.getExcelEntity().getId(), schedule.getExcelEntity().getFile());
+        }
+        for (ScheduleEntity schedule : schedules) {
+            Schedule indexedSchedule = new Schedule(schedule);
+            Transactions.afterCommit(() -> occupancyIndex.put(indexedSchedule));
+        }
+
+        return new UploadSuccessfulResponse(schedules.stream()
+                .map(DetailedScheduleResponse::new).collect(Collectors.toList()));
+    }
+
+    public Pair<?, Boolean> updateSchedule(MultipartFile file, Integer scheduleId, ScheduleService scheduleService,
+                                           boolean compact) throws IOException {
+        if (!scheduleRepository.existsById(scheduleId))
+            return Pair.of(ErrorMessage.WRONG_SCHEDULE_ID.asJson(), Boolean.FALSE);
+
+        ExcelEntity excelEntity = UploadFiles.spool(file);
+        try {
+            return updateSchedule(excelEntity, scheduleId, scheduleService, compact);
+        } finally {
+            UploadFiles.delete(List.of(excelEntity));
+        }
+    }
+
+    private Pair<?, Boolean> updateSchedule(ExcelEntity excelEntity, Integer scheduleId, ScheduleService scheduleService,
+                                            boolean compact) throws IOException {
+        String fileName = Objects.requireNonNull(excelEntity.getExcelName());
+        Optional<Schedule> parsed = parse(fileName, excelEntity);
+        if (parsed.isEmpty())
+            return Pair.of(ErrorMessage.GENERAL_ERROR.asJson(), Boolean.FALSE);
 
-        return Pair.of(new UploadSuccessfulResponse(schedules.stream()
-                .map(DetailedScheduleResponse::new).collect(Collectors.toList())), Boolean.TRUE);
+        CompactConflictCollector compactConflicts = compact ? new CompactConflictCollector() : null;
+        try {
+            return transactionTemplate.execute(status -> applyUpdate(scheduleId, parsed.get(), excelEntity, scheduleService, compactConflicts));
+        } catch (DataIntegrityViolationException e) {
+            if (!isExclusionViolation(e))
+                throw e;
+            CollisionResponse collisionResponse = findCommittedConflicts(parsed.get(), scheduleId, compactConflicts);
+            return Pair.of(compact ? compactConflicts.getResponse() : collisionResponse.conflictSchedule, Boolean.FALSE);
+        }
     }
 
-    @Transactional
-    public Pair<?, Boolean> updateSchedule(MultipartFile file, Integer scheduleId, ScheduleService scheduleService) throws IOException {
+    /**
+     * Checks and stores only the meetings that differ from the stored version of the schedule.
+     */
+    private Pair<?, Boolean> applyUpdate(Integer scheduleId, Schedule parsed, ExcelEntity excelEntity, ScheduleService scheduleService,
+                                         CompactConflictCollector compactConflicts) {
         Optional<ScheduleEntity> schedule = scheduleRepository.findById(scheduleId);
         if (schedule.isEmpty())
             return Pair.of(ErrorMessage.WRONG_SCHEDULE_ID.asJson(), Boolean.FALSE);
 
-        String fileName = file.getOriginalFilename();
-        approvedExcelEntities = new ArrayList<>();
-
-        ExcelEntity excelEntity = new ExcelEntity(fileName, file.getContentType(), file.getBytes());
-        CollisionResponse collisionResponse = checkCollisions(Objects.requireNonNull(fileName), excelEntity, scheduleId);
-        if (collisionResponse.noCollisions) {
-            ScheduleEntity newScheduleEntity = scheduleService.getScheduleEntity(collisionResponse.schedule);
-            ScheduleEntity oldScheduleEntity = schedule.get();
-            conferenceRepository.deleteAll(oldScheduleEntity.getConferences());
-            oldScheduleEntity.setConferenceEntities(newScheduleEntity.getConferences());
-            newScheduleEntity.getConferences().forEach(conferenceEntity -> conferenceEntity.setSchedule(oldScheduleEntity));
-            oldScheduleEntity.getExcelEntity().setExcelName(excelEntity.getExcelName());
-            oldScheduleEntity.getExcelEntity().setData(excelEntity.getData());
-
-            lecturerRepository.saveAll(getLecturers(oldScheduleEntity, lecturerRepository.findAll()));
-            scheduleRepository.save(oldScheduleEntity);
-            return Pair.of(new DetailedScheduleResponse(oldScheduleEntity), Boolean.TRUE);
-        } else {
-            return Pair.of(collisionResponse.conflictSchedule, Boolean.FALSE);
+        ScheduleEntity scheduleEntity = schedule.get();
+        ScheduleDiff diff = new ScheduleDiff(parsed, scheduleEntity);
+        if (!diff.getAdded().getConferences().isEmpty()) {
+            CollisionDetector collisionDetector = new CollisionDetector(diff.getAdded(), collisionPool);
+            collisionDetector.loadSchedules(List.of(diff.getKept()));
+            collisionDetector.loadSchedules(findStoredSchedules(diff.getAdded(), scheduleId), storedCalendar());
+            CollisionResponse collisionResponse = compare(diff.getAdded(), collisionDetector, compactConflicts);
+            if (!collisionResponse.noCollisions)
+                return Pair.of((compactConflicts != null) ? compactConflicts.getResponse() : collisionResponse.conflictSchedule, Boolean.FALSE);
+        }
+
+        for (MeetingEntity meetingEntity : diff.getRemoved()) {
+            meetingEntity.getConferenceEntity().getMeetingEntities().remove(meetingEntity);
         }
+        meetingRepository.deleteAll(diff.getRemoved());
+        scheduleEntity.getConferences().removeAll(diff.getUnmatchedConferences());
+        conferenceRepository.deleteAll(diff.getUnmatchedConferences());
+        // Hibernate inserts before it deletes, the removed meetings have to be gone before the exclusion constraints see the new ones.
+        meetingRepository.flush();
+
+        diff.getAddedConferences().forEach((conference, conferenceEntity) -> {
+            if (conferenceEntity == null) {
+                scheduleService.addConferenceToSchedule(conference, scheduleEntity);
+            } else {
+                conference.getMeetings().forEach(meeting -> scheduleService.addMeetingToConference(meeting, conferenceEntity));
+            }
+        });
+        scheduleEntity.getExcelEntity().setExcelName(excelEntity.getExcelName());
+
+        lecturerRepository.saveAll(getLecturers(scheduleEntity, lecturerRepository.findAll()));
+        scheduleRepository.save(scheduleEntity);
+        excelRepository.writeData(scheduleEntity.getExcelEntity().getId(), excelEntity.getFile());
+        Schedule indexedSchedule = new Schedule(scheduleEntity);
+        Transactions.afterCommit(() -> occupancyIndex.put(indexedSchedule));
+        return Pair.of(new DetailedScheduleResponse(scheduleEntity), Boolean.TRUE);
     }
 
     public Optional<ExcelEntity> getFile(Integer fileId) {
@@ -0,0 +1,193 @@
+package gameofthreads.schedules.service;
+
+import gameofthreads.schedules.domain.OccupancyCalendar;
+import gameofthreads.schedules.domain.PlacementSolver;
+import gameofthreads.schedules.dto.request.PlacementRequest;
+import gameofthreads.schedules.dto.response.PlacementJobResponse;
+import gameofthreads.schedules.dto.response.UploadConflictResponse;
+import gameofthreads.schedules.message.ErrorMessage;
+import io.vavr.control.Either;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Runs placement jobs in the background on a bounded pool. A job places the requested meetings around
+ * the stored ones and keeps its result until it is older than the configured time to live.
+ * At most the configured number of jobs wait for a thread, further ones are refused until the queue drains,
+ * so unfinished jobs never pile up.
+ */
+@Service
+public class PlacementService {
+    private final static Logger LOGGER = LoggerFactory.getLogger(PlacementService.class);
+    private static final int MAX_DAYS = 366;
+
+    private final Map<String, PlacementJob> jobs = new ConcurrentHashMap<>();
+    private final AvailabilityService availabilityService;
+    private final ThreadPoolExecutor executor;
+    private final Duration maxTime;
+    private final long maxIterations;
+    private final int stepMinutes;
+    private final Duration timeToLive;
+
+    public PlacementService(AvailabilityService availabilityService,
+                            @Value("${app.placement.threads}") int threads,
+                            @Value("${app.placement.max-queued-jobs}") int maxQueuedJobs,
+                            @Value("${app.placement.max-time}") Duration maxTime,
+                            @Value("${app.placement.max-iterations}") long maxIterations,
+                            @Value("${app.placement.step-minutes}") int stepMinutes,
+                            @Value("${app.placement.job-ttl}") Duration timeToLive) {
+        this.availabilityService = availabilityService;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueuedJobs));
+        this.maxTime = maxTime;
+        this.maxIterations = maxIterations;
+        this.stepMinutes = stepMinutes;
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Stored meetings are read once the job starts, not by the request thread.
+     */
+    public Either<Object, PlacementJobResponse> submit(PlacementRequest request) {
+        if (!isValid(request))
+            return Either.left(ErrorMessage.WRONG_PLACEMENT_REQUEST.asJson());
+
+        PlacementSolver.Window window = new PlacementSolver.Window(request.firstDay, request.days,
+                request.dayStart, request.dayEnd, stepMinutes);
+        Duration timeLimit = (request.timeLimitSeconds == null || request.timeLimitSeconds <= 0) ?
+                maxTime : min(Duration.ofSeconds(request.timeLimitSeconds), maxTime);
+        long iterationLimit = (request.maxIterations == null || request.maxIterations <= 0) ?
+                maxIterations : Math.min(request.maxIterations, maxIterations);
+
+        List<PlacementSolver.Task> tasks = request.meetings.stream()
+                .map(meeting -> new PlacementSolver.Task(meeting.eventName, meeting.groupName, meeting.lecturerName,
+                        meeting.lecturerSurname, meeting.type, meeting.hours, meeting.form, meeting.durationMinutes, meeting.rooms))
+                .collect(Collectors.toList());
+
+        PlacementJob job = new PlacementJob(UUID.randomUUID().toString(), request);
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job, window, timeLimit, iterationLimit, tasks));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            return Either.left(ErrorMessage.PLACEMENT_QUEUE_FULL.asJson());
+        }
+        return Either.right(job.toResponse());
+    }
+
+    private void run(PlacementJob job, PlacementSolver.Window window, Duration timeLimit, long iterationLimit,
+                     List<PlacementSolver.Task> tasks) {
+        job.start();
+        long start = System.currentTimeMillis();
+        try {
+            OccupancyCalendar calendar = availabilityService.findCalendar(job.request.firstDay.atStartOfDay(),
+                    job.request.firstDay.plusDays(job.request.days).atStartOfDay());
+            job.finish(new PlacementSolver(calendar, window, timeLimit, iterationLimit).solve(tasks));
+            LOGGER.info("Placed " + job.result.getPlaced().size() + " of " + tasks.size() + " meetings in "
+                    + (System.currentTimeMillis() - start) + " ms and " + job.result.getIterations() + " iterations");
+        } catch (RuntimeException e) {
+            LOGGER.error("Placement job " + job.id + " failed", e);
+            job.fail();
+        }
+    }
+
+    public Either<Object, PlacementJobResponse> getJob(String id) {
+        PlacementJob job = jobs.get(id);
+        if (job == null)
+            return Either.left(ErrorMessage.WRONG_PLACEMENT_ID.asJson());
+        return Either.right(job.toResponse());
+    }
+
+    @Scheduled(initialDelay = 1000 * 60, fixedDelay = 1000 * 60)
+    public void evictExpired() {
+        LocalDateTime expiredBefore = LocalDateTime.now().minus(timeToLive);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(expiredBefore));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static boolean isValid(PlacementRequest request) {
+        if (request.firstDay == null || request.days == null || request.dayStart == null || request.dayEnd == null
+                || request.meetings == null || request.meetings.isEmpty())
+            return false;
+        if (request.days <= 0 || request.days > MAX_DAYS || !request.dayStart.isBefore(request.dayEnd))
+            return false;
+
+        return request.meetings.stream().allMatch(meeting -> meeting != null
+                && meeting.groupName != null && meeting.lecturerName != null && meeting.lecturerSurname != null
+                && meeting.type != null && meeting.form != null && meeting.rooms != null
+                && meeting.durationMinutes != null && meeting.durationMinutes > 0);
+    }
+
+    private static Duration min(Duration first, Duration second) {
+        return (first.compareTo(second) <= 0) ? first : second;
+    }
+
+    private enum Status {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    private static final class PlacementJob {
+        private final String id;
+        private final PlacementRequest request;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private volatile Status status = Status.QUEUED;
+        private volatile LocalDateTime finishedAt;
+        private volatile PlacementSolver.Result result;
+
+        private PlacementJob(String id, PlacementRequest request) {
+            this.id = id;
+            this.request = request;
+        }
+
+        private void start() {
+            this.status = Status.RUNNING;
+        }
+
+        private void finish(PlacementSolver.Result result) {
+            this.result = result;
+            this.finishedAt = LocalDateTime.now();
+            this.status = Status.DONE;
+        }
+
+        private void fail() {
+            this.finishedAt = LocalDateTime.now();
+            this.status = Status.FAILED;
+        }
+
+        private PlacementJobResponse toResponse() {
+            Status currentStatus = status;
+            if (currentStatus != Status.DONE)
+                return new PlacementJobResponse(id, currentStatus.name(), submittedAt, finishedAt, null, null, null, null);
+
+            List<UploadConflictResponse.ConflictMeeting> placed = result.getPlaced().stream()
+                    .map(UploadConflictResponse.ConflictMeeting::new)
+                    .collect(Collectors.toList());
+            List<PlacementRequest.PlacementMeeting> unplaced = new ArrayList<>();
+            result.getUnplaced().forEach(task -> unplaced.add(request.meetings.get(task)));
+            return new PlacementJobResponse(id, currentStatus.name(), submittedAt, finishedAt, result.getIterations(),
+                    result.isStopped(), placed, unplaced);
+        }
+    }
+
+}
@@ -2,6 +2,7 @@ package gameofthreads.schedules.service;
 
 import gameofthreads.schedules.domain.Conference;
 import gameofthreads.schedules.domain.Meeting;
+import gameofthreads.schedules.domain.OccupancyIndex;
 import gameofthreads.schedules.domain.Schedule;
 import gameofthreads.schedules.dto.response.DetailedScheduleResponse;
 import gameofthreads.schedules.dto.response.ScheduleListResponse;
@@ -13,6 +14,7 @@ import gameofthreads.schedules.entity.ScheduleEntity;
 import gameofthreads.schedules.message.ErrorMessage;
 import gameofthreads.schedules.notification.EmailGateway;
 import gameofthreads.schedules.repository.*;
+import gameofthreads.schedules.util.Transactions;
 import org.springframework.data.util.Pair;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Service;
@@ -31,16 +33,18 @@ public class ScheduleService {
     private final MeetingRepository meetingRepository;
     private final ExcelRepository excelRepository;
     private final LecturerRepository lecturerRepository;
+    private final OccupancyIndex occupancyIndex;
 
     public ScheduleService(ScheduleRepository scheduleRepository, ConferenceRepository conferenceRepository,
                            MeetingRepository meetingRepository, ExcelRepository excelRepository,
-                           LecturerRepository lecturerRepository) {
+                           LecturerRepository lecturerRepository, OccupancyIndex occupancyIndex) {
 
         this.scheduleRepository = scheduleRepository;
         this.conferenceRepository = conferenceRepository;
         this.meetingRepository = meetingRepository;
         this.excelRepository = excelRepository;
         this.lecturerRepository = lecturerRepository;
+        this.occupancyIndex = occupancyIndex;
     }
 
     private boolean isUserARole(JwtAuthenticationToken jwtToken, String role) {
@@ -118,6 +122,8 @@ public class ScheduleService {
 
             if (name != null) {
                 scheduleEntity.get().setFileName(name);
+                Schedule indexedSchedule = new Schedule(scheduleEntity.get());
+                Transactions.afterCommit(() -> occupancyIndex.put(indexedSchedule));
             }
             if (description != null) {
                 scheduleEntity.get().setDescription(description);
@@ -152,6 +158,7 @@ public class ScheduleService {
                 .reduce(0L, Long::sum);
 
         scheduleRepository.deleteById(scheduleId);
+        Transactions.afterCommit(() -> occupancyIndex.remove(scheduleId));
 
         if (scheduleCount == scheduleRepository.count() + 1 &&
                 conferenceCount == conferenceRepository.count() + conferencesToDelete &&
@@ -190,6 +197,10 @@ public class ScheduleService {
         conferenceEntity.getMeetingEntities().add(meetingEntity);
     }
 
+    public Set<ScheduleEntity> findAllWithConferencesAndMeetings() {
+        return scheduleRepository.fetchAllWithConferencesAndMeetings();
+    }
+
     public Set<String> findPublicLinks() {
         return scheduleRepository.findAll()
                 .stream()
@@ -0,0 +1,40 @@
+package gameofthreads.schedules.util;
+
+import gameofthreads.schedules.entity.ExcelEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+
+public class UploadFiles {
+    private final static Logger LOGGER = LoggerFactory.getLogger(UploadFiles.class);
+
+    /**
+     * Moves the uploaded part into a temporary file of its own, so it is parsed and stored without ever being held in memory.
+     */
+    public static ExcelEntity spool(MultipartFile file) throws IOException {
+        Path path = Files.createTempFile("schedule-upload-", null);
+        try {
+            file.transferTo(path);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+        return new ExcelEntity(file.getOriginalFilename(), file.getContentType(), path);
+    }
+
+    public static void delete(Collection<ExcelEntity> excelEntities) {
+        for (ExcelEntity excelEntity : excelEntities) {
+            try {
+                Files.deleteIfExists(excelEntity.getFile());
+            } catch (IOException e) {
+                LOGGER.warn("Could not delete uploaded file " + excelEntity.getFile(), e);
+            }
+        }
+    }
+
+}
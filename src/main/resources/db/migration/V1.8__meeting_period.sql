@@ -0,0 +1,8 @@
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE meeting
+    ADD COLUMN period TSRANGE GENERATED ALWAYS AS (tsrange(date_start, GREATEST(date_start, date_end), '[]')) STORED;
+
+CREATE INDEX meeting_room_period_idx ON meeting USING gist (room, period) WHERE format <> 'HOME';
+CREATE INDEX meeting_lecturer_period_idx ON meeting USING gist (lecturer_name, lecturer_surname, period);
+CREATE INDEX meeting_group_period_idx ON meeting USING gist (group_name, period);
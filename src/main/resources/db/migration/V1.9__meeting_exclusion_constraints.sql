@@ -0,0 +1,42 @@
+-- Meetings stored before the constraints may already overlap. The migration stops and lists them instead,
+-- they have to be moved or removed by hand before it is run again.
+DO
+$$
+    DECLARE
+        overlapping TEXT;
+    BEGIN
+        SELECT string_agg(pairs.kind || ' ' || pairs.first_id || '/' || pairs.second_id, ', ')
+        INTO overlapping
+        FROM (SELECT 'room' AS kind, a.id AS first_id, b.id AS second_id
+              FROM meeting a
+                       JOIN meeting b ON a.id < b.id AND a.room = b.room AND a.period && b.period
+              WHERE a.format <> 'HOME'
+                AND b.format <> 'HOME'
+              UNION ALL
+              SELECT 'lecturer', a.id, b.id
+              FROM meeting a
+                       JOIN meeting b ON a.id < b.id AND a.lecturer_name = b.lecturer_name
+                  AND a.lecturer_surname = b.lecturer_surname AND a.period && b.period
+              UNION ALL
+              SELECT 'group', a.id, b.id
+              FROM meeting a
+                       JOIN meeting b ON a.id < b.id AND a.group_name = b.group_name AND a.period && b.period
+              ORDER BY 2, 3
+              LIMIT 100) pairs;
+
+        IF overlapping IS NOT NULL THEN
+            RAISE EXCEPTION 'Overlapping meetings (kind first_id/second_id, at most 100): %', overlapping;
+        END IF;
+    END
+$$;
+
+DROP INDEX meeting_room_period_idx;
+DROP INDEX meeting_lecturer_period_idx;
+DROP INDEX meeting_group_period_idx;
+
+ALTER TABLE meeting
+    ADD CONSTRAINT meeting_room_period_excl EXCLUDE USING gist (room WITH =, period WITH &&) WHERE (format <> 'HOME');
+ALTER TABLE meeting
+    ADD CONSTRAINT meeting_lecturer_period_excl EXCLUDE USING gist (lecturer_name WITH =, lecturer_surname WITH =, period WITH &&);
+ALTER TABLE meeting
+    ADD CONSTRAINT meeting_group_period_excl EXCLUDE USING gist (group_name WITH =, period WITH &&);
@@ -0,0 +1,125 @@
+package gameofthreads.schedules.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static gameofthreads.schedules.domain.MeetingFixtures.meeting;
+import static gameofthreads.schedules.domain.MeetingFixtures.meetingsOf;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CollisionSweepTest {
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2021, 6, 7, 0, 0);
+
+    @Test
+    void meetingsTouchingAtTheirBoundaryCollide() {
+        Schedule uploaded = new Schedule("uploaded.xlsx");
+        Schedule stored = new Schedule("stored.xlsx");
+        addMeeting(uploaded, MONDAY.plusHours(8), MONDAY.plusHours(9).plusMinutes(30), "A", "Jan", "Kowalski", "stacjonarnie", "101");
+        addMeeting(stored, MONDAY.plusHours(9).plusMinutes(30), MONDAY.plusHours(11), "B", "Anna", "Nowak", "stacjonarnie", "101");
+
+        List<CollisionSweep.EventCollisions> found = new CollisionSweep(List.of(uploaded, stored)).run();
+
+        assertThat(found).hasSize(1);
+        assertThat(found.get(0).getReasons()).containsExactly(CollisionReason.ROOM.mask());
+        assertMatchesCompareMeeting(List.of(uploaded, stored));
+    }
+
+    @Test
+    void remoteMeetingsDoNotOccupyTheirRoom() {
+        Schedule uploaded = new Schedule("uploaded.xlsx");
+        Schedule stored = new Schedule("stored.xlsx");
+        addMeeting(uploaded, MONDAY.plusHours(8), MONDAY.plusHours(10), "A", "Jan", "Kowalski", "zdalnie", "101");
+        addMeeting(stored, MONDAY.plusHours(9), MONDAY.plusHours(11), "B", "Anna", "Nowak", "stacjonarnie", "101");
+        addMeeting(stored, MONDAY.plusHours(9), MONDAY.plusHours(11), "A", "Anna", "Nowak", "zdalnie", "101");
+
+        List<CollisionSweep.EventCollisions> found = new CollisionSweep(List.of(uploaded, stored)).run();
+
+        assertThat(found).hasSize(1);
+        assertThat(found.get(0).getReasons()).containsExactly(CollisionReason.GROUP.mask());
+        assertMatchesCompareMeeting(List.of(uploaded, stored));
+    }
+
+    @Test
+    void meetingsOfTheUploadedScheduleCollideWithEachOther() {
+        Schedule uploaded = new Schedule("uploaded.xlsx");
+        addMeeting(uploaded, MONDAY.plusHours(8), MONDAY.plusHours(10), "A", "Jan", "Kowalski", "stacjonarnie", "101");
+        addMeeting(uploaded, MONDAY.plusHours(10), MONDAY.plusHours(12), "B", "Jan", "Kowalski", "zdalnie", "101");
+
+        assertThat(new CollisionSweep(List.of(uploaded)).run()).hasSize(2);
+        assertMatchesCompareMeeting(List.of(uploaded));
+    }
+
+    @Test
+    void randomSchedulesMatchCompareMeeting() {
+        Random random = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            List<Schedule> schedules = new ArrayList<>();
+            for (int schedule = 0, count = 1 + random.nextInt(3); schedule < count; schedule++) {
+                schedules.add(randomSchedule("schedule" + schedule + ".xlsx", random));
+            }
+            assertMatchesCompareMeeting(schedules);
+        }
+    }
+
+    private static void assertMatchesCompareMeeting(List<Schedule> schedules) {
+        List<Meeting> expectedEvents = new ArrayList<>();
+        List<List<Meeting>> expectedMeetings = new ArrayList<>();
+        List<List<Integer>> expectedReasons = new ArrayList<>();
+        for (Meeting meeting : meetingsOf(schedules.get(0))) {
+            List<Meeting> others = new ArrayList<>();
+            List<Integer> reasons = new ArrayList<>();
+            for (Schedule schedule : schedules) {
+                for (Meeting other : meetingsOf(schedule)) {
+                    int collision = (other == meeting) ? 0 : meeting.compareMeeting(other);
+                    if (collision != 0) {
+                        others.add(other);
+                        reasons.add(collision);
+                    }
+                }
+            }
+            if (!others.isEmpty()) {
+                expectedEvents.add(meeting);
+                expectedMeetings.add(others);
+                expectedReasons.add(reasons);
+            }
+        }
+
+        List<CollisionSweep.EventCollisions> found = new CollisionSweep(schedules).run();
+
+        assertThat(found).hasSize(expectedEvents.size());
+        for (int i = 0; i < found.size(); i++) {
+            assertThat(found.get(i).getEvent()).isSameAs(expectedEvents.get(i));
+            assertThat(found.get(i).getMeetings()).containsExactlyElementsOf(expectedMeetings.get(i));
+            assertThat(found.get(i).getReasons()).containsExactlyElementsOf(expectedReasons.get(i));
+        }
+    }
+
+    private static Schedule randomSchedule(String fileName, Random random) {
+        String[][] lecturers = {{"Jan", "Kowalski"}, {"Anna", "Nowak"}, {"Jan", "Nowak"}};
+        Schedule schedule = new Schedule(fileName);
+        for (int conference = 0, count = 1 + random.nextInt(3); conference < count; conference++) {
+            Conference added = new Conference(schedule);
+            for (int meeting = 0, meetings = 1 + random.nextInt(8); meeting < meetings; meeting++) {
+                LocalDateTime start = MONDAY.plusDays(random.nextInt(2)).plusHours(8 + random.nextInt(8)).plusMinutes(15 * random.nextInt(4));
+                String[] lecturer = lecturers[random.nextInt(lecturers.length)];
+                added.getMeetings().add(meeting(added, start, start.plusMinutes(15 * (2 + random.nextInt(8))),
+                        "G" + random.nextInt(3), lecturer[0], lecturer[1],
+                        random.nextInt(4) == 0 ? "zdalnie" : "stacjonarnie", String.valueOf(100 + random.nextInt(4))));
+            }
+            schedule.getConferences().add(added);
+        }
+        return schedule;
+    }
+
+    private static void addMeeting(Schedule schedule, LocalDateTime start, LocalDateTime end, String group,
+                                   String lecturerName, String lecturerSurname, String format, String room) {
+        Conference conference = new Conference(schedule);
+        conference.getMeetings().add(meeting(conference, start, end, group, lecturerName, lecturerSurname, format, room));
+        schedule.getConferences().add(conference);
+    }
+
+}
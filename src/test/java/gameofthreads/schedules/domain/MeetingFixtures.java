@@ -0,0 +1,38 @@
+package gameofthreads.schedules.domain;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Meetings of the domain tests, all lectures of two hours on the same subject.
+ */
+final class MeetingFixtures {
+
+    private MeetingFixtures() {
+    }
+
+    static Meeting meeting(Conference conference, LocalDateTime start, LocalDateTime end, String group,
+                           String lecturerName, String lecturerSurname, String format, String room) {
+        return new Meeting.MeetingBuilder()
+                .conference(conference)
+                .dateStart(start)
+                .dateEnd(end)
+                .subject("Subject")
+                .group(group)
+                .lecturerName(lecturerName)
+                .lecturerSurname(lecturerSurname)
+                .type("W")
+                .lengthInHours(2)
+                .format(format)
+                .room(room)
+                .build();
+    }
+
+    static List<Meeting> meetingsOf(Schedule schedule) {
+        List<Meeting> meetings = new ArrayList<>();
+        schedule.getConferences().forEach(conference -> meetings.addAll(conference.getMeetings()));
+        return meetings;
+    }
+
+}
@@ -0,0 +1,70 @@
+package gameofthreads.schedules.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static gameofthreads.schedules.domain.MeetingFixtures.meeting;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OccupancyCalendarTest {
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2021, 6, 7, 0, 0);
+    private static final ResourceKey ROOM = ResourceKey.room("101");
+
+    @Test
+    void slotsDecideCollisionsOfMeetingsOnTheGrid() {
+        OccupancyCalendar calendar = calendar(MONDAY.plusHours(8), MONDAY.plusHours(9).plusMinutes(30));
+
+        assertThat(calendar.collides(ROOM, uploaded(MONDAY.plusHours(9).plusMinutes(30), MONDAY.plusHours(11)))).isTrue();
+        assertThat(calendar.collides(ROOM, uploaded(MONDAY.plusHours(9).plusMinutes(35), MONDAY.plusHours(11)))).isFalse();
+        assertThat(calendar.intersects(ROOM, uploaded(MONDAY.plusHours(9).plusMinutes(35), MONDAY.plusHours(11)))).isFalse();
+    }
+
+    @Test
+    void meetingsOffTheGridAreLeftToExactComparison() {
+        OccupancyCalendar calendar = calendar(MONDAY.plusHours(8), MONDAY.plusHours(9).plusMinutes(31));
+        Meeting uploaded = uploaded(MONDAY.plusHours(9).plusMinutes(33), MONDAY.plusHours(11));
+
+        assertThat(calendar.intersects(ROOM, uploaded)).isTrue();
+        assertThat(calendar.collides(ROOM, uploaded)).isFalse();
+        assertThat(calendar.collides(ROOM, uploaded(MONDAY.plusHours(9), MONDAY.plusHours(10)))).isFalse();
+        assertThat(calendar.collides(ROOM, uploaded(MONDAY.plusDays(1).plusHours(9), MONDAY.plusDays(1).plusHours(10)))).isFalse();
+    }
+
+    @Test
+    void onlyMeetingsHittingTheCalendarCollideWithItsSchedules() {
+        Schedule stored = schedule("stored.xlsx", MONDAY.plusHours(8), MONDAY.plusHours(9));
+        Schedule uploaded = schedule("uploaded.xlsx", MONDAY.plusHours(9), MONDAY.plusHours(10));
+        Conference conference = uploaded.getConferences().iterator().next();
+        conference.getMeetings().add(meeting(conference, MONDAY.plusHours(12), MONDAY.plusHours(13), "G1", "Jan", "Kowalski",
+                "stacjonarnie", "101"));
+        OccupancyCalendar calendar = new OccupancyCalendar();
+        calendar.add(stored);
+
+        List<CollisionSweep.EventCollisions> found = new CollisionSweep(List.of(uploaded, stored), calendar, 1, 2).run();
+
+        assertThat(found).hasSize(1);
+        assertThat(found.get(0).getEvent().getDateStart()).isEqualTo(MONDAY.plusHours(9));
+        assertThat(found.get(0).getMeetings()).containsExactlyElementsOf(MeetingFixtures.meetingsOf(stored));
+    }
+
+    private static OccupancyCalendar calendar(LocalDateTime start, LocalDateTime end) {
+        OccupancyCalendar calendar = new OccupancyCalendar();
+        calendar.add(schedule("stored.xlsx", start, end));
+        return calendar;
+    }
+
+    private static Schedule schedule(String fileName, LocalDateTime start, LocalDateTime end) {
+        Schedule schedule = new Schedule(fileName);
+        Conference conference = new Conference(schedule);
+        conference.getMeetings().add(meeting(conference, start, end, "G2", "Anna", "Nowak", "stacjonarnie", "101"));
+        schedule.getConferences().add(conference);
+        return schedule;
+    }
+
+    private static Meeting uploaded(LocalDateTime start, LocalDateTime end) {
+        return meeting(null, start, end, "G1", "Jan", "Kowalski", "stacjonarnie", "101");
+    }
+
+}
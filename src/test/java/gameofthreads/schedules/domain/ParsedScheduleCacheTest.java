@@ -0,0 +1,114 @@
+package gameofthreads.schedules.domain;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParsedScheduleCacheTest {
+    private static final String HEADER = "Zjazd,Data,Godziny,Przedmiot,Grupa,Prowadzący,Typ,Godziny,Forma,Sala\n";
+
+    private CollisionPool collisionPool;
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        collisionPool = new CollisionPool(1, 0);
+        directory = Files.createTempDirectory("parsed-schedule-cache");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        collisionPool.shutdown();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedSchedulesOverTheMeetingLimit() throws IOException {
+        ParsedScheduleCache cache = new ParsedScheduleCache(4, collisionPool);
+        Path first = file("first.csv", "101", 2);
+        Path second = file("second.csv", "102", 2);
+        Path third = file("third.csv", "103", 1);
+
+        parse(cache, first);
+        parse(cache, second);
+        parse(cache, first);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(2);
+
+        parse(cache, third);
+        parse(cache, first);
+        assertThat(cache.getHits()).isEqualTo(2);
+        assertThat(cache.getMisses()).isEqualTo(3);
+
+        parse(cache, second);
+        assertThat(cache.getMisses()).isEqualTo(4);
+        parse(cache, third);
+        assertThat(cache.getMisses()).isEqualTo(5);
+        parse(cache, second);
+        assertThat(cache.getHits()).isEqualTo(3);
+    }
+
+    @Test
+    void schedulesOverTheLimitAreNotCached() throws IOException {
+        ParsedScheduleCache cache = new ParsedScheduleCache(4, collisionPool);
+        Path large = file("large.csv", "101", 5);
+
+        assertThat(parse(cache, large).getConferences().iterator().next().getMeetings()).hasSize(5);
+        parse(cache, large);
+
+        assertThat(cache.getHits()).isZero();
+        assertThat(cache.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void everyLookupGetsItsOwnCopy() throws IOException {
+        ParsedScheduleCache cache = new ParsedScheduleCache(10, collisionPool);
+        Path file = file("plan.csv", "101", 3);
+
+        Schedule parsed = parse(cache, file);
+        Meeting meeting = MeetingFixtures.meetingsOf(parsed).get(0);
+        parsed.getConferences().iterator().next().getMeetings().clear();
+        parsed.getConferences().add(new Conference(parsed));
+
+        Schedule cached = cache.parse("renamed.csv", file, UploadFormat.CSV, ParserMode.STREAMING).orElseThrow();
+
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cached).isNotSameAs(parsed);
+        assertThat(cached.getFileName()).isEqualTo("renamed");
+        assertThat(cached.getConferences()).hasSize(1);
+        assertThat(MeetingFixtures.meetingsOf(cached)).hasSize(3)
+                .allSatisfy(copy -> {
+                    assertThat(copy).isNotSameAs(meeting);
+                    assertThat(copy.getConference().getSchedule()).isSameAs(cached);
+                });
+    }
+
+    private Path file(String fileName, String room, int meetings) throws IOException {
+        StringBuilder content = new StringBuilder(HEADER);
+        for (int i = 0; i < meetings; i++) {
+            content.append("1,2021-06-0").append(i + 1).append(",8.00-9.30,Subject,G1,Jan Kowalski,W,2,stacjonarnie,")
+                    .append(room).append('\n');
+        }
+        Path file = directory.resolve(fileName);
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static Schedule parse(ParsedScheduleCache cache, Path file) throws IOException {
+        return cache.parse(file.getFileName().toString(), file, UploadFormat.CSV, ParserMode.STREAMING).orElseThrow();
+    }
+
+}
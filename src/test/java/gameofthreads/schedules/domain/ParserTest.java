@@ -0,0 +1,115 @@
+package gameofthreads.schedules.domain;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParserTest {
+
+    @Test
+    void streamingReadsExampleWorkbooksLikeWorkbookMode() throws IOException {
+        List<Path> examples = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get("example"), "*.xlsx")) {
+            files.forEach(examples::add);
+        }
+        assertThat(examples).isNotEmpty();
+
+        for (Path example : examples) {
+            byte[] data = Files.readAllBytes(example);
+            List<String> expected = rows(new Parser(example.toString(), data, ParserMode.WORKBOOK).parse());
+
+            assertThat(expected).isNotEmpty();
+            assertThat(rows(new Parser(example.toString(), data, ParserMode.STREAMING).parse()))
+                    .as(example.toString())
+                    .isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void streamingReadsEverySheetLikeWorkbookMode() throws IOException {
+        XSSFWorkbook workbook = new XSSFWorkbook();
+        CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("dd.mm.yyyy"));
+        Sheet first = workbook.createSheet("first");
+        header(first);
+        row(first, 1, 1, dateStyle, 7, "8.00-9.30", "Jan Kowalski", "101");
+        row(first, 2, 1, dateStyle, 7, "9.45-11.15", "Anna Nowak", "102");
+        row(first, 3, 2, dateStyle, 8, "8.00-9.30", "Jan Kowalski", "A-1");
+        first.createRow(4).createCell(0).setCellValue("Razem");
+        Sheet second = workbook.createSheet("second");
+        header(second);
+        row(second, 1, 1, dateStyle, 9, "12.00-13.30", "Jan Maria Kowalski", "101");
+        row(second, 2, 1, dateStyle, 9, "14.00-15.30", "Anna Nowak", "202");
+        second.createRow(3).createCell(0).setCellValue("Razem");
+        workbook.createSheet("notes").createRow(0).createCell(0).setCellValue("Notatki");
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        workbook.write(output);
+        byte[] data = output.toByteArray();
+
+        List<String> expected = rows(new Parser("plan.xlsx", data, ParserMode.WORKBOOK).parse());
+
+        assertThat(expected).hasSize(3);
+        assertThat(rows(new Parser("plan.xlsx", data, ParserMode.STREAMING).parse())).isEqualTo(expected);
+    }
+
+    private static void header(Sheet sheet) {
+        Row header = sheet.createRow(0);
+        String[] columns = {"Zjazd", "Data", "Godziny", "Przedmiot", "Grupa", "Prowadzący", "Typ", "Godziny", "Forma", "Sala"};
+        for (int column = 0; column < columns.length; column++) {
+            header.createCell(column).setCellValue(columns[column]);
+        }
+    }
+
+    private static void row(Sheet sheet, int index, int conference, CellStyle dateStyle, int day, String hours,
+                            String lecturer, String room) {
+        Row row = sheet.createRow(index);
+        row.createCell(0).setCellValue(conference);
+        row.createCell(1).setCellValue(new GregorianCalendar(2021, Calendar.JUNE, day).getTime());
+        row.getCell(1).setCellStyle(dateStyle);
+        row.createCell(2).setCellValue(hours);
+        row.createCell(3).setCellValue("Subject " + index);
+        row.createCell(4).setCellValue("G" + index);
+        row.createCell(5).setCellValue(lecturer);
+        row.createCell(6).setCellValue("W");
+        row.createCell(7).setCellValue(2);
+        row.createCell(8).setCellValue("stacjonarnie");
+        row.createCell(9).setCellValue(room);
+    }
+
+    /**
+     * The meetings of every conference as sorted lines, as conferences and meetings are held in sets.
+     */
+    private static List<String> rows(Optional<Schedule> schedule) {
+        assertThat(schedule).isPresent();
+        List<String> rows = new ArrayList<>();
+        for (Conference conference : schedule.get().getConferences()) {
+            List<String> meetings = new ArrayList<>();
+            for (Meeting meeting : conference.getMeetings()) {
+                meetings.add(String.valueOf(meeting.contentKey()));
+            }
+            Collections.sort(meetings);
+            rows.add(String.join("\n", meetings));
+        }
+        Collections.sort(rows);
+        return rows;
+    }
+
+}
@@ -0,0 +1,74 @@
+package gameofthreads.schedules.domain;
+
+import gameofthreads.schedules.entity.MeetingFormat;
+import gameofthreads.schedules.entity.MeetingType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static gameofthreads.schedules.domain.MeetingFixtures.meeting;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PlacementSolverTest {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2021, 6, 7);
+    private static final LocalTime DAY_START = LocalTime.of(8, 0);
+    private static final LocalTime DAY_END = LocalTime.of(16, 0);
+
+    @Test
+    void placesEveryMeetingWithoutCollisions() {
+        Schedule stored = new Schedule("stored.xlsx");
+        Conference conference = new Conference(stored);
+        for (int day = 0; day < 3; day++) {
+            LocalDateTime start = FIRST_DAY.plusDays(day).atTime(9, 0);
+            conference.getMeetings().add(meeting(conference, start, start.plusMinutes(90), "G3", "Anna", "Nowak", "stacjonarnie", "101"));
+            conference.getMeetings().add(meeting(conference, start.plusHours(3), start.plusHours(3).plusMinutes(90), "G2", "Jan", "Kowalski",
+                    "stacjonarnie", "102"));
+        }
+        stored.getConferences().add(conference);
+        OccupancyCalendar calendar = new OccupancyCalendar();
+        calendar.add(stored);
+
+        List<PlacementSolver.Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            tasks.add(new PlacementSolver.Task("Subject " + i, (i % 2 == 0) ? "G1" : "G2", "Jan", "Kowalski",
+                    MeetingType.LECTURE, 2, (i % 4 == 3) ? MeetingFormat.HOME : MeetingFormat.UNIVERSITY, 90, List.of("101", "102")));
+        }
+
+        PlacementSolver.Result result = new PlacementSolver(calendar, new PlacementSolver.Window(FIRST_DAY, 3, DAY_START, DAY_END, 15),
+                Duration.ofSeconds(30), 100_000).solve(tasks);
+
+        assertThat(result.getUnplaced()).isEmpty();
+        assertThat(result.getPlaced()).hasSize(tasks.size());
+        List<Meeting> placed = result.getPlaced();
+        for (int i = 0; i < placed.size(); i++) {
+            Meeting meeting = placed.get(i);
+            assertThat(meeting.getDateStart().toLocalDate()).isBetween(FIRST_DAY, FIRST_DAY.plusDays(2));
+            assertThat(meeting.getDateStart().toLocalTime()).isAfterOrEqualTo(DAY_START);
+            assertThat(meeting.getDateEnd().toLocalTime()).isBeforeOrEqualTo(DAY_END);
+            for (int j = i + 1; j < placed.size(); j++) {
+                assertThat(meeting.compareMeeting(placed.get(j))).isZero();
+            }
+            for (Meeting storedMeeting : conference.getMeetings()) {
+                assertThat(meeting.compareMeeting(storedMeeting)).isZero();
+            }
+        }
+    }
+
+    @Test
+    void leavesMeetingsThatDoNotFitTheDayUnplaced() {
+        List<PlacementSolver.Task> tasks = List.of(new PlacementSolver.Task("Subject", "G1", "Jan", "Kowalski",
+                MeetingType.LECTURE, 2, MeetingFormat.UNIVERSITY, 9 * 60, List.of("101")));
+
+        PlacementSolver.Result result = new PlacementSolver(new OccupancyCalendar(),
+                new PlacementSolver.Window(FIRST_DAY, 3, DAY_START, DAY_END, 15), Duration.ofSeconds(30), 100_000).solve(tasks);
+
+        assertThat(result.getPlaced()).isEmpty();
+        assertThat(result.getUnplaced()).containsExactly(0);
+    }
+
+}
@@ -0,0 +1,63 @@
+package gameofthreads.schedules.domain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RowDecoderTest {
+
+    @Test
+    void internKeepsOneCopyOfEachValue() {
+        RowDecoder decoder = new RowDecoder();
+        String first = decoder.intern(new String("Sala 101"));
+
+        assertThat(decoder.intern(new String("Sala 101"))).isSameAs(first);
+        assertThat(decoder.intern("Sala 102")).isNotSameAs(first);
+    }
+
+    @Test
+    void decodesTimeRanges() {
+        RowDecoder decoder = new RowDecoder();
+
+        assertThat(decoder.timeRange("8.00-9.30")).containsExactly(8, 0, 9, 30);
+        assertThat(decoder.timeRange("14.15-15.45")).containsExactly(14, 15, 15, 45);
+        assertThat(decoder.timeRange("8.00.00-9.30-ignored")).containsExactly(8, 0, 9, 30);
+        assertThat(decoder.timeRange("8.00-9.30")).isSameAs(decoder.timeRange("8.00-9.30"));
+    }
+
+    @Test
+    void rejectsMalformedTimeRanges() {
+        RowDecoder decoder = new RowDecoder();
+
+        for (String times : new String[]{"8.00", "-9.30", "8.00-", "8-9", "8.-9.30", "8.00--9.30", "a.00-9.30", "8.00-9.xx"}) {
+            assertThatThrownBy(() -> decoder.timeRange(times))
+                    .as(times)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void splitsLecturersIntoNameAndSurname() {
+        RowDecoder decoder = new RowDecoder();
+
+        assertThat(decoder.lecturer("Jan Kowalski")).containsExactly("Jan", "Kowalski");
+        assertThat(decoder.lecturer("Jan Maria Kowalski")).containsExactly("Jan", "Maria");
+        assertThat(decoder.lecturer("Kowalski")).containsExactly("", "");
+        assertThat(decoder.lecturer("Kowalski   ")).containsExactly("", "");
+        assertThat(decoder.lecturer("")).containsExactly("", "");
+    }
+
+    @Test
+    void lecturerNamesAreInterned() {
+        RowDecoder decoder = new RowDecoder();
+        String name = decoder.intern(new String("Jan"));
+
+        String[] lecturer = decoder.lecturer(new String("Jan Kowalski"));
+
+        assertThat(lecturer[0]).isSameAs(name);
+        assertThat(decoder.lecturer(new String("Jan Kowalski"))).isSameAs(lecturer);
+        assertThat(decoder.lecturer("Anna Kowalski")[1]).isSameAs(lecturer[1]);
+    }
+
+}
@@ -0,0 +1,112 @@
+package gameofthreads.schedules.domain;
+
+import gameofthreads.schedules.entity.ConferenceEntity;
+import gameofthreads.schedules.entity.MeetingEntity;
+import gameofthreads.schedules.entity.MeetingFormat;
+import gameofthreads.schedules.entity.MeetingType;
+import gameofthreads.schedules.entity.ScheduleEntity;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static gameofthreads.schedules.domain.MeetingFixtures.meetingsOf;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScheduleDiffTest {
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2021, 6, 7, 8, 0);
+
+    @Test
+    void movedRowIsRemovedAndAddedAgain() {
+        ScheduleEntity stored = new ScheduleEntity("plan.xlsx", "link", null, Boolean.TRUE);
+        ConferenceEntity storedConference = conferenceEntity(stored);
+        MeetingEntity monday = meetingEntity(storedConference, MONDAY, "101");
+        MeetingEntity tuesday = meetingEntity(storedConference, MONDAY.plusDays(1), "101");
+        MeetingEntity wednesday = meetingEntity(storedConference, MONDAY.plusDays(2), "101");
+
+        Schedule parsed = new Schedule("plan.xlsx");
+        Conference conference = conference(parsed);
+        Meeting keptMonday = meeting(conference, MONDAY, "101");
+        Meeting moved = meeting(conference, MONDAY.plusDays(1).plusHours(2), "101");
+        Meeting keptWednesday = meeting(conference, MONDAY.plusDays(2), "101");
+
+        ScheduleDiff diff = new ScheduleDiff(parsed, stored);
+
+        assertThat(meetingsOf(diff.getKept())).containsExactlyInAnyOrder(keptMonday, keptWednesday);
+        assertThat(meetingsOf(diff.getAdded())).containsExactly(moved);
+        assertThat(diff.getAddedConferences()).hasSize(1).containsValue(storedConference);
+        assertThat(diff.getRemoved()).containsExactly(tuesday);
+        assertThat(diff.getRemoved()).doesNotContain(monday, wednesday);
+        assertThat(diff.getUnmatchedConferences()).isEmpty();
+    }
+
+    @Test
+    void rowMovedToAnotherConferenceIsRemovedAndAddedAgain() {
+        ScheduleEntity stored = new ScheduleEntity("plan.xlsx", "link", null, Boolean.TRUE);
+        ConferenceEntity firstStored = conferenceEntity(stored);
+        meetingEntity(firstStored, MONDAY, "101");
+        MeetingEntity movedEntity = meetingEntity(firstStored, MONDAY.plusDays(1), "101");
+        ConferenceEntity secondStored = conferenceEntity(stored);
+        meetingEntity(secondStored, MONDAY, "202");
+        meetingEntity(secondStored, MONDAY.plusDays(1), "202");
+
+        Schedule parsed = new Schedule("plan.xlsx");
+        Conference first = conference(parsed);
+        meeting(first, MONDAY, "101");
+        Conference second = conference(parsed);
+        meeting(second, MONDAY, "202");
+        meeting(second, MONDAY.plusDays(1), "202");
+        Meeting moved = meeting(second, MONDAY.plusDays(1), "101");
+
+        ScheduleDiff diff = new ScheduleDiff(parsed, stored);
+
+        assertThat(meetingsOf(diff.getKept())).hasSize(3);
+        assertThat(meetingsOf(diff.getAdded())).containsExactly(moved);
+        assertThat(diff.getAddedConferences()).containsValue(secondStored);
+        assertThat(diff.getRemoved()).containsExactly(movedEntity);
+        assertThat(diff.getUnmatchedConferences()).isEmpty();
+    }
+
+    @Test
+    void conferenceWithNoStoredRowsIsNew() {
+        ScheduleEntity stored = new ScheduleEntity("plan.xlsx", "link", null, Boolean.TRUE);
+        ConferenceEntity storedConference = conferenceEntity(stored);
+        MeetingEntity storedMeeting = meetingEntity(storedConference, MONDAY, "101");
+
+        Schedule parsed = new Schedule("plan.xlsx");
+        Meeting added = meeting(conference(parsed), MONDAY.plusDays(3), "303");
+
+        ScheduleDiff diff = new ScheduleDiff(parsed, stored);
+
+        assertThat(meetingsOf(diff.getKept())).isEmpty();
+        assertThat(meetingsOf(diff.getAdded())).containsExactly(added);
+        assertThat(diff.getAddedConferences().values()).containsExactly((ConferenceEntity) null);
+        assertThat(diff.getRemoved()).containsExactly(storedMeeting);
+        assertThat(diff.getUnmatchedConferences()).containsExactly(storedConference);
+    }
+
+    private static ConferenceEntity conferenceEntity(ScheduleEntity schedule) {
+        ConferenceEntity conference = new ConferenceEntity(schedule);
+        schedule.getConferences().add(conference);
+        return conference;
+    }
+
+    private static MeetingEntity meetingEntity(ConferenceEntity conference, LocalDateTime start, String room) {
+        MeetingEntity meeting = new MeetingEntity(conference, start, start.plusMinutes(90), "Subject", "G1", "Jan", "Kowalski",
+                MeetingType.LECTURE, 2, MeetingFormat.UNIVERSITY, room);
+        conference.getMeetingEntities().add(meeting);
+        return meeting;
+    }
+
+    private static Conference conference(Schedule schedule) {
+        Conference conference = new Conference(schedule);
+        schedule.getConferences().add(conference);
+        return conference;
+    }
+
+    private static Meeting meeting(Conference conference, LocalDateTime start, String room) {
+        Meeting meeting = MeetingFixtures.meeting(conference, start, start.plusMinutes(90), "G1", "Jan", "Kowalski", "stacjonarnie", room);
+        conference.getMeetings().add(meeting);
+        return meeting;
+    }
+
+}
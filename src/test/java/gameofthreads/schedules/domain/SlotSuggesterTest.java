@@ -0,0 +1,63 @@
+package gameofthreads.schedules.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static gameofthreads.schedules.domain.MeetingFixtures.meeting;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlotSuggesterTest {
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2021, 6, 7, 0, 0);
+
+    @Test
+    void suggestsTheNearestSlotsOfEveryGap() {
+        Schedule stored = schedule("stored.xlsx", MONDAY.plusHours(9), "G2", "Anna", "Nowak");
+        Schedule uploaded = schedule("uploaded.xlsx", MONDAY.plusHours(9), "G1", "Jan", "Kowalski");
+        Meeting conflicting = MeetingFixtures.meetingsOf(uploaded).get(0);
+
+        List<LocalDateTime> starts = starts(suggester(stored, uploaded, 5, SlotSuggester.Scope.DAY).suggest(conflicting));
+
+        assertThat(starts).containsExactly(MONDAY.plusHours(7).plusMinutes(25), MONDAY.plusHours(10).plusMinutes(35),
+                MONDAY.plusHours(7).plusMinutes(20), MONDAY.plusHours(10).plusMinutes(40), MONDAY.plusHours(7).plusMinutes(15));
+    }
+
+    @Test
+    void suggestsNoMoreSlotsThanFitTheScope() {
+        Schedule stored = schedule("stored.xlsx", MONDAY.plusMinutes(5), "G2", "Anna", "Nowak");
+        Schedule uploaded = schedule("uploaded.xlsx", MONDAY.plusMinutes(5), "G1", "Jan", "Kowalski");
+        Meeting conflicting = MeetingFixtures.meetingsOf(uploaded).get(0);
+
+        List<OccupancyTimeline.Interval> slots = suggester(stored, uploaded, 1000, SlotSuggester.Scope.DAY).suggest(conflicting);
+
+        assertThat(slots).hasSize(250);
+        assertThat(slots.get(0).getFrom()).isEqualTo(MONDAY.plusHours(1).plusMinutes(40));
+        assertThat(slots.get(slots.size() - 1).getTo()).isBefore(MONDAY.plusDays(1));
+    }
+
+    private static SlotSuggester suggester(Schedule stored, Schedule uploaded, int count, SlotSuggester.Scope scope) {
+        OccupancyTimeline storedTimeline = new OccupancyTimeline();
+        storedTimeline.add(stored);
+        OccupancyTimeline uploadedTimeline = new OccupancyTimeline();
+        uploadedTimeline.add(uploaded);
+        return new SlotSuggester(List.of(storedTimeline, uploadedTimeline), new SlotSuggester.Request(count, scope));
+    }
+
+    private static Schedule schedule(String fileName, LocalDateTime start, String group, String lecturerName, String lecturerSurname) {
+        Schedule schedule = new Schedule(fileName);
+        Conference conference = new Conference(schedule);
+        conference.getMeetings().add(meeting(conference, start, start.plusMinutes(90), group, lecturerName, lecturerSurname,
+                "stacjonarnie", "101"));
+        schedule.getConferences().add(conference);
+        return schedule;
+    }
+
+    private static List<LocalDateTime> starts(List<OccupancyTimeline.Interval> slots) {
+        List<LocalDateTime> starts = new ArrayList<>();
+        slots.forEach(slot -> starts.add(slot.getFrom()));
+        return starts;
+    }
+
+}
@@ -0,0 +1,98 @@
+package gameofthreads.schedules.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TextRowReaderTest {
+    private static final String HEADER = "Zjazd,Data,Godziny,Przedmiot,Grupa,Prowadzący,Typ,Godziny,Forma,Sala\n";
+    private static final String ROW = "1,2021-06-01,8.00-9.30,Subject,G1,Jan Kowalski,W,2,stacjonarnie,101\n";
+
+    @Test
+    void readsQuotedCsvValues() throws IOException {
+        String csv = "\uFEFF\"Sala 1, parter\",\"Powiedz \"\"tak\"\"\",\r\n\r\n\"dwie\nlinie\",x";
+        List<List<String>> rows = new ArrayList<>();
+
+        TextRowReader.readCsv(new BufferedReader(new StringReader(csv)), cells -> {
+            List<String> row = new ArrayList<>();
+            cells.forEachRemaining(cell -> row.add(cell.getStringCellValue()));
+            rows.add(row);
+        });
+
+        assertThat(rows).containsExactly(
+                List.of("Sala 1, parter", "Powiedz \"tak\"", ""),
+                List.of("dwie\nlinie", "x"));
+    }
+
+    @Test
+    void valuesOfTheWrongKindFailLikeWorkbookCells() throws IOException {
+        List<SheetCell> cells = new ArrayList<>();
+        TextRowReader.readCsv(new BufferedReader(new StringReader("dwa,1.06.2021,,01.06.2021,2021-06-01")),
+                row -> row.forEachRemaining(cells::add));
+
+        assertThatThrownBy(() -> cells.get(0).getNumericCellValue()).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> cells.get(1).getDateCellValue()).isInstanceOf(IllegalStateException.class);
+        assertThat(cells.get(2).getNumericCellValue()).isZero();
+        assertThat(cells.get(2).getDateCellValue()).isNull();
+        assertThat(cells.get(3).getDateCellValue()).isEqualTo(cells.get(4).getDateCellValue());
+    }
+
+    @Test
+    void wellFormedCsvIsParsed() throws IOException {
+        Optional<Schedule> schedule = parse("plan.csv", UploadFormat.CSV, HEADER + ROW + ROW.replace("8.00-9.30", "9.45-11.15"));
+
+        assertThat(schedule).isPresent();
+        assertThat(schedule.get().getConferences()).hasSize(1);
+        assertThat(schedule.get().getConferences().iterator().next().getMeetings()).hasSize(2);
+    }
+
+    @Test
+    void malformedCsvRowsRejectTheFileWithTheirRowNumber() {
+        assertRejected(HEADER + ROW + ROW + ROW.replace("2021-06-01", "jutro"), 4);
+        assertRejected(HEADER + ROW + ROW.replace(",2,", ",dwie,"), 3);
+        assertRejected(HEADER + ROW.replace("8.00-9.30", "8.00"), 2);
+        assertRejected(HEADER + "1,2021-06-01,8.00-9.30\n" + ROW, 2);
+    }
+
+    @Test
+    void malformedJsonRejectsTheFileWithItsRowNumber() {
+        String row = "{\"conference\":1,\"date\":\"2021-06-01\",\"times\":\"8.00-9.30\",\"subject\":\"Subject\",\"group\":\"G1\","
+                + "\"lecturer\":\"Jan Kowalski\",\"type\":\"W\",\"hours\":2,\"format\":\"stacjonarnie\",\"room\":\"101\"}\n";
+
+        assertThatThrownBy(() -> parse("plan.ndjson", UploadFormat.NDJSON, row + row + "{\"conference\":1,\"date\"\n"))
+                .isInstanceOfSatisfying(RowFormatException.class, e -> assertThat(e.getRow()).isEqualTo(3));
+        assertThatThrownBy(() -> parse("plan.ndjson", UploadFormat.NDJSON, row + "[1, 2]\n"))
+                .isInstanceOfSatisfying(RowFormatException.class, e -> assertThat(e.getRow()).isEqualTo(2));
+    }
+
+    private static void assertRejected(String csv, int row) {
+        assertThatThrownBy(() -> parse("plan.csv", UploadFormat.CSV, csv))
+                .as(csv)
+                .isInstanceOfSatisfying(RowFormatException.class, e -> {
+                    assertThat(e.getFileName()).isEqualTo("plan");
+                    assertThat(e.getRow()).isEqualTo(row);
+                });
+    }
+
+    private static Optional<Schedule> parse(String fileName, UploadFormat format, String content) throws IOException {
+        Path file = Files.createTempFile("schedule", fileName);
+        try {
+            Files.writeString(file, content, StandardCharsets.UTF_8);
+            return new Parser(fileName, file, format, ParserMode.STREAMING, null).parse();
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+}